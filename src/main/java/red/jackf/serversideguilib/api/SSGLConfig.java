@@ -0,0 +1,245 @@
+package red.jackf.serversideguilib.api;
+
+import red.jackf.serversideguilib.api.labels.HeadProfileResolver;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Global settings for the library. These are shared by every menu on the server, so should generally be set once by the
+ * server or mod using SSGL, i.e. during initialization.
+ */
+public class SSGLConfig {
+    private static boolean phaseAlignedAnimations = false;
+    private static long tickBudgetNanos = 0;
+    private static List<LoadStep> animationLoadCurve = List.of();
+    private static int dirtySlotSweepInterval = 20;
+    private static int anvilTextDebounceTicks = 1;
+    private static int labelCacheSize = 512;
+    private static boolean preEncodeLabels = false;
+    private static HeadProfileResolver headProfileResolver = HeadProfileResolver.SERVER;
+    private static int maxClicksPerTick = 0;
+    private static boolean latencyTracking = false;
+
+    /**
+     * Interval multiplier that stops animations on their current frame.
+     */
+    public static final int FREEZE = 0;
+
+    /**
+     * A suggested curve for {@link #setAnimationLoadCurve(List)}: animations slow to half speed past 40 MSPT, quarter
+     * speed past 50 MSPT, and freeze past 60 MSPT.
+     */
+    public static final List<LoadStep> DEFAULT_ANIMATION_LOAD_CURVE = List.of(
+            new LoadStep(40f, 2),
+            new LoadStep(50f, 4),
+            new LoadStep(60f, FREEZE)
+    );
+
+    private SSGLConfig() {
+    }
+
+    /**
+     * Whether animated labels are aligned to a shared server clock. If true, every label with the same interval and
+     * frame count shows the same frame at the same time, regardless of when its menu was opened. If false (the default),
+     * each menu's labels start from their first frame when opened.
+     */
+    public static boolean phaseAlignedAnimations() {
+        return phaseAlignedAnimations;
+    }
+
+    /**
+     * Set whether animated labels should be aligned to a shared server clock.
+     *
+     * @param aligned Whether to align animations; see {@link #phaseAlignedAnimations()}
+     */
+    public static void setPhaseAlignedAnimations(boolean aligned) {
+        phaseAlignedAnimations = aligned;
+    }
+
+    /**
+     * Time budget for the library's per-tick work, in nanoseconds. Once exceeded, the remaining
+     * {@link red.jackf.serversideguilib.api.menus.MenuBuilder.MenuTicker}s are deferred to the next tick, resuming
+     * where this tick left off so no menu is starved. At least one ticker always runs each tick. 0 (the default) means
+     * no limit.
+     */
+    public static long tickBudgetNanos() {
+        return tickBudgetNanos;
+    }
+
+    /**
+     * Set the time budget for the library's per-tick work.
+     *
+     * @param nanos Budget in nanoseconds, or 0 for no limit; see {@link #tickBudgetNanos()}
+     */
+    public static void setTickBudgetNanos(long nanos) {
+        tickBudgetNanos = Math.max(nanos, 0);
+    }
+
+    /**
+     * Get how much animated labels should be slowed down at a given server load.
+     *
+     * @param mspt Recent average milliseconds per tick
+     * @return Multiplier for animation intervals; 1 for normal speed, or {@link #FREEZE}
+     */
+    public static int animationSlowdown(double mspt) {
+        var multiplier = 1;
+        for (var step : animationLoadCurve)
+            if (mspt >= step.mspt()) multiplier = step.intervalMultiplier();
+            else break;
+        return multiplier;
+    }
+
+    /**
+     * Set how animated labels degrade as the server lags. Each step stretches every animation's interval by its multiplier
+     * once the recent average MSPT reaches its threshold, or freezes them on their current frame with {@link #FREEZE}.
+     * Animations return to normal once load drops back below the first step. By default, the curve is empty and
+     * animations always run at full speed; see {@link #DEFAULT_ANIMATION_LOAD_CURVE} for a starting point.
+     *
+     * @param steps Steps of the curve, in any order
+     */
+    public static void setAnimationLoadCurve(List<LoadStep> steps) {
+        animationLoadCurve = steps.stream().sorted(Comparator.comparingDouble(LoadStep::mspt)).toList();
+    }
+
+    /**
+     * A step in the animation load curve.
+     *
+     * @param mspt               Average milliseconds per tick at or above which this step applies
+     * @param intervalMultiplier How many times longer each frame is shown, or {@link #FREEZE} to stop animating
+     */
+    public record LoadStep(float mspt, int intervalMultiplier) {
+        public LoadStep {
+            if (intervalMultiplier < 0) throw new IllegalArgumentException("Interval multiplier must not be negative");
+        }
+    }
+
+    /**
+     * How often every slot of an SSGL menu is compared against the client's copy, in ticks. Otherwise, only slots written
+     * through <code>Slot.set</code> and the player's inventory are compared each tick. This catches slots changed without
+     * going through their Slot, i.e. <code>container.setItem(i, stack)</code>. 0 disables the tracking, comparing every
+     * slot every tick like vanilla.
+     */
+    public static int dirtySlotSweepInterval() {
+        return dirtySlotSweepInterval;
+    }
+
+    /**
+     * Set how often every slot of an SSGL menu is compared against the client's copy.
+     *
+     * @param ticks Interval in ticks, or 0 to compare every slot every tick; see {@link #dirtySlotSweepInterval()}
+     */
+    public static void setDirtySlotSweepInterval(int ticks) {
+        dirtySlotSweepInterval = Math.max(ticks, 0);
+    }
+
+    /**
+     * Minimum ticks between validations of a text input's contents, per menu. Text typed in between is coalesced, and the
+     * latest text is validated once the interval passes. If longer than 1 tick, a placeholder is shown in the result slot
+     * while waiting. Defaults to 1, validating at most once per tick.
+     */
+    public static int anvilTextDebounceTicks() {
+        return anvilTextDebounceTicks;
+    }
+
+    /**
+     * Set the minimum ticks between validations of a text input's contents.
+     *
+     * @param ticks Interval in ticks, at least 1; see {@link #anvilTextDebounceTicks()}
+     */
+    public static void setAnvilTextDebounceTicks(int ticks) {
+        anvilTextDebounceTicks = Math.max(ticks, 1);
+    }
+
+    /**
+     * How many built labels are kept, keyed by their contents. Building a label that's already cached returns the cached
+     * one, sharing its stacks. Defaults to 512; 0 disables the cache.
+     */
+    public static int labelCacheSize() {
+        return labelCacheSize;
+    }
+
+    /**
+     * Set how many built labels are kept.
+     *
+     * @param size Maximum cached labels, or 0 to disable; see {@link #labelCacheSize()}
+     */
+    public static void setLabelCacheSize(int size) {
+        labelCacheSize = Math.max(size, 0);
+    }
+
+    /**
+     * Whether label stacks keep their encoded network form after being sent once, writing it straight into later packets
+     * instead of encoding the stack again. This skips anything else that hooks into item encoding for those stacks, i.e.
+     * per-player item rewriting by other mods, so is off by default.
+     */
+    public static boolean preEncodeLabels() {
+        return preEncodeLabels;
+    }
+
+    /**
+     * Set whether label stacks keep their encoded network form.
+     *
+     * @param preEncode Whether to pre-encode labels; see {@link #preEncodeLabels()}
+     */
+    public static void setPreEncodeLabels(boolean preEncode) {
+        preEncodeLabels = preEncode;
+    }
+
+    /**
+     * How player heads from {@link red.jackf.serversideguilib.api.labels.Label#playerHead(String)} get their profile and
+     * textures. Defaults to {@link HeadProfileResolver#SERVER}, using the server's profile cache and session service.
+     */
+    public static HeadProfileResolver headProfileResolver() {
+        return headProfileResolver;
+    }
+
+    /**
+     * Set how player heads get their profile and textures, i.e. to a local stand-in for testing.
+     *
+     * @param resolver Resolver to use; see {@link #headProfileResolver()}
+     */
+    public static void setHeadProfileResolver(HeadProfileResolver resolver) {
+        headProfileResolver = resolver;
+    }
+
+    /**
+     * How many button clicks are handled per player per tick. Past this, clicks are dropped until the next tick, and
+     * repeats of a click already handled this tick are ignored. This stops autoclickers and laggy clients replaying
+     * queued clicks from rebuilding a menu many times in one tick, but also drops legitimate fast clicks, i.e. two left
+     * clicks followed by a double click. Buttons can opt out with
+     * {@link red.jackf.serversideguilib.api.buttons.Button#withoutRateLimit()}. Defaults to 0, disabling both the limit
+     * and the collapsing of repeats, so every click is handled.
+     */
+    public static int maxClicksPerTick() {
+        return maxClicksPerTick;
+    }
+
+    /**
+     * Set how many button clicks are handled per player per tick.
+     *
+     * @param clicks Maximum clicks, or 0 for no limit; see {@link #maxClicksPerTick()}
+     */
+    public static void setMaxClicksPerTick(int clicks) {
+        maxClicksPerTick = Math.max(clicks, 0);
+    }
+
+    /**
+     * Whether the time taken from a button click to its changes being sent is recorded, per menu class and phase. Viewable
+     * in game with <code>/ssgl latency</code>. Off by default. Menus that don't call
+     * {@link red.jackf.serversideguilib.api.menus.MenuBuilder#setOwner(red.jackf.serversideguilib.api.menus.Menu)} have
+     * their class found by walking the stack each time they're opened, which is only done while this is on.
+     */
+    public static boolean latencyTracking() {
+        return latencyTracking;
+    }
+
+    /**
+     * Set whether click latency is recorded.
+     *
+     * @param track Whether to record click latency; see {@link #latencyTracking()}
+     */
+    public static void setLatencyTracking(boolean track) {
+        latencyTracking = track;
+    }
+}
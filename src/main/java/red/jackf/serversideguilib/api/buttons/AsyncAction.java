@@ -0,0 +1,19 @@
+package red.jackf.serversideguilib.api.buttons;
+
+import red.jackf.serversideguilib.api.labels.Label;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Work done off the server thread when a button is clicked, from {@link Button#async(Label, Label, Function, Consumer)}.
+ * Run by the menu, which shows the loading label while waiting and runs the completion on the server thread.
+ *
+ * @param loading    Label shown while the work runs
+ * @param start      Starts the work for a click
+ * @param onComplete Ran on the server thread with the work's result
+ * @param <T>        Result of the work
+ */
+public record AsyncAction<T>(Label loading, Function<Input, CompletableFuture<T>> start, Consumer<T> onComplete) {
+}
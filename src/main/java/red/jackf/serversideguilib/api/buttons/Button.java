@@ -1,20 +1,44 @@
 package red.jackf.serversideguilib.api.buttons;
 
+import org.jetbrains.annotations.Nullable;
+import red.jackf.serversideguilib.api.SSGLConfig;
 import red.jackf.serversideguilib.api.labels.Label;
 import red.jackf.serversideguilib.api.labels.Labels;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Represents a button on the GUI; this generally takes up a single slot.
  *
  * @param label   ItemStack shown in the GUI
- * @param handler Consumer that takes input.
+ * @param handler     Consumer that takes input. See {@link InputHandlers} for handling inputs separately.
+ * @param rateLimited Whether clicks on this button count towards {@link SSGLConfig#maxClicksPerTick()}
+ * @param asyncAction Work started off the server thread on click instead of running <code>handler</code>, or null
  */
-public record Button(Label label, Consumer<Input> handler) {
+public record Button(Label label, Consumer<Input> handler, boolean rateLimited, @Nullable AsyncAction<?> asyncAction) {
     public static final Consumer<Input> DO_NOTHING = i -> {
     };
 
+    public Button(Label label, Consumer<Input> handler) {
+        this(label, handler, true);
+    }
+
+    public Button(Label label, Consumer<Input> handler, boolean rateLimited) {
+        this(label, handler, rateLimited, null);
+    }
+
+    /**
+     * Get a copy of this button that handles every click, for inputs that legitimately repeat quickly such as holding a
+     * hotbar key.
+     *
+     * @return Button without click rate limiting
+     */
+    public Button withoutRateLimit() {
+        return new Button(label, handler, false, asyncAction);
+    }
+
     /**
      * Shorthand to create a button that runs on left click
      *
@@ -23,11 +47,44 @@ public record Button(Label label, Consumer<Input> handler) {
      * @return Created button
      */
     public static Button leftClick(Label label, Runnable onClick) {
-        return new Button(label, input -> {
-            if (input instanceof Input.LeftClick click && !click.shift()) {
-                onClick.run();
-            }
-        });
+        return of(label, InputHandlers.builder().on(Input.LEFT_CLICK, onClick).build());
+    }
+
+    /**
+     * Create a button with a separate handler for each input.
+     *
+     * @param label    Label to display on the button
+     * @param handlers Handlers for each input
+     * @return Created button
+     */
+    public static Button of(Label label, InputHandlers handlers) {
+        return new Button(label, handlers);
+    }
+
+    /**
+     * Create a button whose work happens off the server thread, i.e. a database lookup. While the work is running, the
+     * button's slot shows a loading label and ignores further clicks, including after the menu re-renders. Once done,
+     * <code>onComplete</code> is run with the result on the server thread, as long as the menu is still open. The button's
+     * {@link #handler()} does nothing; the menu starts the work itself.
+     *
+     * @param label      Label to display on the button
+     * @param loading    Label to display while the work runs; can be animated
+     * @param start      Starts the work for a click, returning its result
+     * @param onComplete Ran on the server thread with the result
+     * @param <T>        Result of the work
+     * @return Created async button
+     */
+    public static <T> Button async(Label label, Label loading, Function<Input, CompletableFuture<T>> start, Consumer<T> onComplete) {
+        return new Button(label, DO_NOTHING, true, new AsyncAction<>(loading, start, onComplete));
+    }
+
+    /**
+     * Create a button whose work happens off the server thread, showing {@link Labels#LOADING} while it runs.
+     *
+     * @see #async(Label, Label, Function, Consumer)
+     */
+    public static <T> Button async(Label label, Function<Input, CompletableFuture<T>> start, Consumer<T> onComplete) {
+        return async(label, Labels.LOADING, start, onComplete);
     }
 
     /**
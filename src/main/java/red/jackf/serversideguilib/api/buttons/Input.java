@@ -8,6 +8,10 @@ import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.minecraft.world.inventory.ClickType;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 /**
  * Represents possible inputs from players, using cancelled inventory interactions. Use <code>instanceof</code> to check
  * which input is being used.
@@ -15,6 +19,30 @@ import org.jetbrains.annotations.Nullable;
  * under the cursor.
  */
 public sealed interface Input permits Input.DoubleLeftClick, Input.Drop, Input.Hotbar, Input.LeftClick, Input.MiddleClick, Input.RightClick {
+    LeftClick LEFT_CLICK = new LeftClick(false);
+    LeftClick SHIFT_LEFT_CLICK = new LeftClick(true);
+    RightClick RIGHT_CLICK = new RightClick(false);
+    RightClick SHIFT_RIGHT_CLICK = new RightClick(true);
+    DoubleLeftClick DOUBLE_LEFT_CLICK = new DoubleLeftClick();
+    MiddleClick MIDDLE_CLICK = new MiddleClick();
+    Drop DROP = new Drop(false);
+    Drop CONTROL_DROP = new Drop(true);
+
+    /**
+     * Every possible input, indexed by {@link #id()}. Inputs parsed from clicks are always one of these instances.
+     */
+    List<Input> VALUES = Stream.concat(
+            Stream.of(LEFT_CLICK, SHIFT_LEFT_CLICK, RIGHT_CLICK, SHIFT_RIGHT_CLICK, DOUBLE_LEFT_CLICK, MIDDLE_CLICK, DROP, CONTROL_DROP),
+            IntStream.range(0, 9).mapToObj(Hotbar::new)).toList();
+
+    /**
+     * Get the interned hotbar input for a slot.
+     *
+     * @param index Hotbar slot (0 indexed)
+     */
+    static Hotbar hotbar(int index) {
+        return (Hotbar) VALUES.get(Hotbar.FIRST_INDEX + index);
+    }
 
     /**
      * Returns a hint of what key needs to be pressed to activate this specific handler.
@@ -23,12 +51,22 @@ public sealed interface Input permits Input.DoubleLeftClick, Input.Drop, Input.H
      */
     Component getHint();
 
+    /**
+     * @return Position of this input in {@link #VALUES}, for use in lookup tables.
+     */
+    int id();
+
     /**
      * A left mouse click. Can't be rebound. Does not require an item. Can be off-screen.
      *
      * @param shift Whether either Shift button was pressed
      */
     record LeftClick(boolean shift) implements Input {
+        @Override
+        public int id() {
+            return shift ? 1 : 0;
+        }
+
         @Override
         public Component getHint() {
             var text = Component.translatable("key.mouse.left");
@@ -44,6 +82,11 @@ public sealed interface Input permits Input.DoubleLeftClick, Input.Drop, Input.H
      * Not sent if shift is held.
      */
     record DoubleLeftClick() implements Input {
+        @Override
+        public int id() {
+            return 4;
+        }
+
         @Override
         public Component getHint() {
             return Component.literal("2 x ").withStyle(BASE_STYLE)
@@ -57,6 +100,11 @@ public sealed interface Input permits Input.DoubleLeftClick, Input.Drop, Input.H
      * @param shift Whether either Shift button was pressed
      */
     record RightClick(boolean shift) implements Input {
+        @Override
+        public int id() {
+            return shift ? 3 : 2;
+        }
+
         @Override
         public Component getHint() {
             var text = Component.translatable("key.mouse.right");
@@ -72,6 +120,11 @@ public sealed interface Input permits Input.DoubleLeftClick, Input.Drop, Input.H
      * in creative mode.
      */
     record MiddleClick() implements Input {
+        @Override
+        public int id() {
+            return 5;
+        }
+
         @Override
         public Component getHint() {
             return Input.format(Component.translatable("key.mouse.middle"));
@@ -84,6 +137,11 @@ public sealed interface Input permits Input.DoubleLeftClick, Input.Drop, Input.H
      * @param control Whether either Ctrl button was pressed
      */
     record Drop(boolean control) implements Input {
+        @Override
+        public int id() {
+            return control ? 7 : 6;
+        }
+
         @Override
         public Component getHint() {
             var text = Component.keybind("key.drop");
@@ -101,10 +159,17 @@ public sealed interface Input permits Input.DoubleLeftClick, Input.Drop, Input.H
      * @param index Hotbar slot pressed (0 indexed, so first slot = 0)
      */
     record Hotbar(int index) implements Input {
+        private static final int FIRST_INDEX = 8;
+
         public Hotbar {
             assert 0 <= index && index < 9;
         }
 
+        @Override
+        public int id() {
+            return FIRST_INDEX + index;
+        }
+
         @Override
         public Component getHint() {
             return Input.format(Component.keybind("key.hotbar." + (index + 1)));
@@ -114,36 +179,36 @@ public sealed interface Input permits Input.DoubleLeftClick, Input.Drop, Input.H
     /**
      * Parses an Input from a given inventory interaction. Used in {@link red.jackf.serversideguilib.internal.mixins.AbstractContainerMenuMixin}
      *
-     * @return Parsed Input, or null if invalid
+     * @return Parsed Input from {@link #VALUES}, or null if invalid
      */
     @Nullable
     static Input getInputFromRaw(int slotId, int button, ClickType clickType) {
         if (slotId == AbstractContainerMenu.SLOT_CLICKED_OUTSIDE) {
             if (clickType == ClickType.THROW) {
-                if (button == 0) return new LeftClick(false);
-                else if (button == 1) return new RightClick(false);
-            } else if (clickType == ClickType.CLONE && button == 2) return new MiddleClick();
+                if (button == 0) return LEFT_CLICK;
+                else if (button == 1) return RIGHT_CLICK;
+            } else if (clickType == ClickType.CLONE && button == 2) return MIDDLE_CLICK;
         } else switch (clickType) {
             case PICKUP -> {
-                if (button == 0) return new LeftClick(false);
-                else if (button == 1) return new RightClick(false);
+                if (button == 0) return LEFT_CLICK;
+                else if (button == 1) return RIGHT_CLICK;
             }
             case QUICK_MOVE -> {
-                if (button == 0) return new LeftClick(true);
-                else if (button == 1) return new RightClick(true);
+                if (button == 0) return SHIFT_LEFT_CLICK;
+                else if (button == 1) return SHIFT_RIGHT_CLICK;
             }
             case CLONE -> {
-                if (button == 2) return new MiddleClick();
+                if (button == 2) return MIDDLE_CLICK;
             }
             case THROW -> {
-                if (button == 0) return new Drop(false);
-                else if (button == 1) return new Drop(true);
+                if (button == 0) return DROP;
+                else if (button == 1) return CONTROL_DROP;
             }
             case SWAP -> {
-                if (0 <= button && button < 9) return new Hotbar(button);
+                if (0 <= button && button < 9) return hotbar(button);
             }
             case PICKUP_ALL -> {
-                if (button == 0) return new DoubleLeftClick();
+                if (button == 0) return DOUBLE_LEFT_CLICK;
             }
         }
         return null;
@@ -0,0 +1,63 @@
+package red.jackf.serversideguilib.api.buttons;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * A button handler made of separate handlers for each input, looked up by {@link Input#id()} instead of checking each
+ * input in turn. Inputs without a handler are ignored. Can be used anywhere a <code>Consumer&lt;Input&gt;</code> is,
+ * i.e. <code>new Button(label, InputHandlers.builder().on(Input.LEFT_CLICK, this::select).build())</code>.
+ */
+public final class InputHandlers implements Consumer<Input> {
+    private final Runnable[] handlers;
+
+    private InputHandlers(Runnable[] handlers) {
+        this.handlers = handlers;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public void accept(Input input) {
+        var handler = handlers[input.id()];
+        if (handler != null) handler.run();
+    }
+
+    public static class Builder {
+        private final Runnable[] handlers = new Runnable[Input.VALUES.size()];
+
+        private Builder() {
+        }
+
+        /**
+         * Run a handler on a given input, replacing any previous handler for it.
+         *
+         * @param input   Input to handle, i.e. {@link Input#LEFT_CLICK}
+         * @param handler Ran when the input is received
+         */
+        public Builder on(Input input, Runnable handler) {
+            handlers[input.id()] = handler;
+            return this;
+        }
+
+        /**
+         * Run a handler on any hotbar key press.
+         *
+         * @param handler Ran with the hotbar slot pressed (0 indexed)
+         */
+        public Builder onHotbar(IntConsumer handler) {
+            for (int i = 0; i < 9; i++) {
+                var index = i;
+                on(Input.hotbar(i), () -> handler.accept(index));
+            }
+            return this;
+        }
+
+        public InputHandlers build() {
+            return new InputHandlers(Arrays.copyOf(handlers, handlers.length));
+        }
+    }
+}
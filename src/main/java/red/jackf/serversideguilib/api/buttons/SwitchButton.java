@@ -107,8 +107,8 @@ public class SwitchButton {
             if (optionName == null) optionName = Component.literal(option.name());
             builder.hint(optionName.copy().withStyle(option == currentValue ? ACTIVE : INACTIVE));
         }
-        builder.inputHint("Next", new Input.LeftClick(false));
-        builder.inputHint("Previous", new Input.RightClick(false));
+        builder.inputHint("Next", Input.LEFT_CLICK);
+        builder.inputHint("Previous", Input.RIGHT_CLICK);
 
         return new Button(builder.build(), input -> {
             var ord = currentValue.ordinal();
@@ -134,12 +134,12 @@ public class SwitchButton {
         var trueLabel = Label.builder().item(Items.LIME_CONCRETE)
                 .name(optionName)
                 .hint("True")
-                .inputHint("Toggle", new Input.LeftClick(false))
+                .inputHint("Toggle", Input.LEFT_CLICK)
                 .build();
         var falseLabel = Label.builder().item(Items.RED_CONCRETE)
                 .name(optionName)
                 .hint("False")
-                .inputHint("Toggle", new Input.LeftClick(false))
+                .inputHint("Toggle", Input.LEFT_CLICK)
                 .build();
         return b -> b ? trueLabel : falseLabel;
     }
@@ -0,0 +1,31 @@
+package red.jackf.serversideguilib.api.labels;
+
+import com.mojang.authlib.GameProfile;
+import net.minecraft.server.MinecraftServer;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Looks up full player profiles, including skin textures, for {@link Label#playerHead(String)}. Called from a background
+ * thread, so may block. Set with {@link red.jackf.serversideguilib.api.SSGLConfig#setHeadProfileResolver(HeadProfileResolver)}.
+ */
+@FunctionalInterface
+public interface HeadProfileResolver {
+    /**
+     * Resolves profiles through the server's profile cache and session service, the same as vanilla skulls.
+     */
+    HeadProfileResolver SERVER = (server, name) -> {
+        var profileCache = server.getProfileCache();
+        if (profileCache == null) return null;
+        var profile = profileCache.get(name).orElse(null);
+        if (profile == null) return null;
+        return server.getSessionService().fillProfileProperties(profile, true);
+    };
+
+    /**
+     * @param server Server the head is being shown on
+     * @param name   Player name to look up
+     * @return Profile with texture properties, or null if no such player exists
+     */
+    @Nullable
+    GameProfile resolve(MinecraftServer server, String name);
+}
@@ -1,9 +1,10 @@
 package red.jackf.serversideguilib.api.labels;
 
 import net.minecraft.ChatFormatting;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtUtils;
 import net.minecraft.nbt.StringTag;
-import net.minecraft.nbt.Tag;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.Style;
 import net.minecraft.server.level.ServerPlayer;
@@ -13,6 +14,11 @@ import net.minecraft.world.item.PlayerHeadItem;
 import net.minecraft.world.level.ItemLike;
 import org.jetbrains.annotations.Nullable;
 import red.jackf.serversideguilib.api.buttons.Input;
+import red.jackf.serversideguilib.api.utils.StackUtils;
+import red.jackf.serversideguilib.internal.utils.HeadProfiles;
+import red.jackf.serversideguilib.internal.utils.LabelCache;
+import red.jackf.serversideguilib.internal.utils.LatencyTracker;
+import red.jackf.serversideguilib.internal.utils.LoreCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -64,23 +70,31 @@ public sealed interface Label {
     }
 
     /**
-     * Creates a LabelBuilder starting with a player head from a given username
+     * Creates a LabelBuilder starting with a player head from a given username. If the player's profile hasn't been looked
+     * up recently, it's resolved in the background and the head updated in any open menu once done.
      *
      * @param name Username for the head to use
      */
     static Label.LabelBuilder playerHead(String name) {
         var stack = new ItemStack(Items.PLAYER_HEAD);
-        stack.getOrCreateTag().putString(PlayerHeadItem.TAG_SKULL_OWNER, name);
+        var profile = HeadProfiles.cached(name);
+        if (profile != null)
+            stack.getOrCreateTag().put(PlayerHeadItem.TAG_SKULL_OWNER, NbtUtils.writeGameProfile(new CompoundTag(), profile));
+        else
+            stack.getOrCreateTag().putString(PlayerHeadItem.TAG_SKULL_OWNER, name);
         return Label.builder().item(stack).name(name);
     }
 
     /**
-     * Creates a LabelBuilder starting with a player head from a given ServerPlayer
+     * Creates a LabelBuilder starting with a player head from a given ServerPlayer, using their profile's textures.
      *
      * @param player Player whose head to use
      */
     static Label.LabelBuilder playerHead(ServerPlayer player) {
-        return playerHead(player.getGameProfile().getName());
+        var profile = player.getGameProfile();
+        var stack = new ItemStack(Items.PLAYER_HEAD);
+        stack.getOrCreateTag().put(PlayerHeadItem.TAG_SKULL_OWNER, NbtUtils.writeGameProfile(new CompoundTag(), profile));
+        return Label.builder().item(stack).name(profile.getName());
     }
 
     class LabelBuilder {
@@ -101,7 +115,7 @@ public sealed interface Label {
         }
 
         public LabelBuilder item(ItemStack stack) {
-            this.stacks.add(stack.copy());
+            this.stacks.add(StackUtils.shareOrCopy(stack));
             return this;
         }
 
@@ -121,12 +135,12 @@ public sealed interface Label {
         }
 
         public LabelBuilder inputHint(Input input) {
-            this.hints.add(input.getHint());
+            this.hints.add(LoreCache.hint(input));
             return this;
         }
 
         public LabelBuilder inputHint(String action, Input input) {
-            return hint(Component.literal(action + ": ").withStyle(Label.HINT).append(input.getHint()));
+            return hint(Component.literal(action + ": ").withStyle(Label.HINT).append(LoreCache.hint(input)));
         }
 
         public LabelBuilder hint(Component hint) {
@@ -144,23 +158,25 @@ public sealed interface Label {
             return this;
         }
 
+        /**
+         * Builds the label. Labels with the same contents are cached and shared, so the returned label's stacks are
+         * frozen; see {@link StackUtils#freeze(ItemStack)}.
+         */
         public Label build() {
             if (stacks.size() == 0) return new Label.Empty(name);
-            for (var stack : stacks) {
-                if (name != null) stack.setHoverName(name);
-                if (hints.size() > 0) {
-                    var displayTag = stack.getOrCreateTagElement(ItemStack.TAG_DISPLAY);
-                    if (!displayTag.contains(ItemStack.TAG_LORE, Tag.TAG_LIST))
-                        displayTag.put(ItemStack.TAG_LORE, new ListTag());
-                    var loreTag = displayTag.getList(ItemStack.TAG_LORE, Tag.TAG_STRING);
-                    hints.forEach(component -> loreTag.add(StringTag.valueOf(Component.Serializer.toJson(component))));
-                }
-                if (!keepLore)
-                    for (ItemStack.TooltipPart part : ItemStack.TooltipPart.values())
-                        stack.hideTooltipPart(part);
+            var start = LatencyTracker.begin();
+            try {
+                return LabelCache.get(LabelCache.Key.of(stacks, name, hints, keepLore, interval), this::render);
+            } finally {
+                LatencyTracker.end(LatencyTracker.Phase.REBUILD, start);
             }
-            if (stacks.size() == 1) return new Label.Static(name, stacks.get(0));
-            else return new Label.Animated(name, stacks, interval);
+        }
+
+        private Label render() {
+            var hintLore = new ListTag();
+            hints.forEach(component -> hintLore.add(LoreCache.serialize(component)));
+            var nameTag = name != null ? StringTag.valueOf(Component.Serializer.toJson(name)) : null;
+            return LabelStacks.build(stacks, name, nameTag, hintLore, !keepLore, interval);
         }
     }
 
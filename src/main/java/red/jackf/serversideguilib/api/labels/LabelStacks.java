@@ -0,0 +1,57 @@
+package red.jackf.serversideguilib.api.labels;
+
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+import red.jackf.serversideguilib.api.utils.StackUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Puts together a label's frames; shared by {@link Label.LabelBuilder} and {@link LabelTemplate}.
+ */
+final class LabelStacks {
+    private LabelStacks() {
+    }
+
+    /**
+     * @param sources     Stacks to copy for each frame; not modified
+     * @param name        Name of the label
+     * @param nameTag     <code>name</code> serialized, or null if unnamed
+     * @param hintLore    Serialized hints, appended to each frame's lore; shared by every frame without lore of its own
+     * @param hideTooltip Whether to hide the frames' default tooltip parts
+     * @return Label with frozen frames
+     */
+    static Label build(List<ItemStack> sources, @Nullable Component name, @Nullable StringTag nameTag, ListTag hintLore, boolean hideTooltip, int interval) {
+        var built = new ArrayList<ItemStack>(sources.size());
+        for (var source : sources) {
+            // copies of empty stacks are the shared ItemStack.EMPTY
+            if (source.isEmpty()) {
+                built.add(ItemStack.EMPTY);
+                continue;
+            }
+            var stack = source.copy();
+            if (nameTag != null || !hintLore.isEmpty()) {
+                var displayTag = stack.getOrCreateTagElement(ItemStack.TAG_DISPLAY);
+                // string tags are immutable, so every frame can share it
+                if (nameTag != null) displayTag.put(ItemStack.TAG_DISPLAY_NAME, nameTag);
+                if (!hintLore.isEmpty()) {
+                    if (displayTag.contains(ItemStack.TAG_LORE, Tag.TAG_LIST))
+                        displayTag.getList(ItemStack.TAG_LORE, Tag.TAG_STRING).addAll(hintLore);
+                    else
+                        displayTag.put(ItemStack.TAG_LORE, hintLore);
+                }
+            }
+            if (hideTooltip)
+                for (ItemStack.TooltipPart part : ItemStack.TooltipPart.values())
+                    stack.hideTooltipPart(part);
+            built.add(StackUtils.freeze(stack));
+        }
+        if (built.size() == 1) return new Label.Static(name, built.get(0));
+        else return new Label.Animated(name, List.copyOf(built), interval);
+    }
+}
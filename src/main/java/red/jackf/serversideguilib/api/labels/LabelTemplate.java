@@ -0,0 +1,243 @@
+package red.jackf.serversideguilib.api.labels;
+
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.Style;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.ItemLike;
+import org.jetbrains.annotations.Nullable;
+import red.jackf.serversideguilib.api.buttons.Input;
+import red.jackf.serversideguilib.api.utils.StackUtils;
+import red.jackf.serversideguilib.internal.utils.LatencyTracker;
+import red.jackf.serversideguilib.internal.utils.LoreCache;
+import red.jackf.serversideguilib.internal.utils.LruCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A label with placeholders in its name and hints, for labels that are rebuilt often with only a value changing, i.e.
+ * <code>"Last: " + value</code>. The stacks and any fixed text are built once; {@link #render(Object...)} only fills in
+ * the placeholders. Placeholders are written as <code>{0}</code>, <code>{1}</code>, etc., and are replaced with
+ * {@link String#valueOf(Object)} of the matching argument.
+ * <p>
+ * Rendered labels are regular {@link Label}s, so can be used anywhere one can. Recently rendered labels are cached and
+ * shared, so their stacks are frozen; see {@link StackUtils#freeze(ItemStack)}.</p>
+ */
+public class LabelTemplate {
+    private static final int RENDER_CACHE_SIZE = 16;
+
+    private final List<ItemStack> stacks;
+    private final int interval;
+    @Nullable
+    private final Line name;
+    private final List<Line> hints;
+    private final int argCount;
+    private final LruCache<List<String>, Label> rendered = new LruCache<>(RENDER_CACHE_SIZE);
+
+    private LabelTemplate(List<ItemStack> stacks, int interval, @Nullable Line name, List<Line> hints) {
+        this.stacks = stacks;
+        this.interval = interval;
+        this.name = name;
+        this.hints = hints;
+        var argCount = name != null ? name.argCount() : 0;
+        for (var hint : hints) argCount = Math.max(argCount, hint.argCount());
+        this.argCount = argCount;
+    }
+
+    public static TemplateBuilder builder() {
+        return new TemplateBuilder();
+    }
+
+    /**
+     * Fill in this template's placeholders.
+     *
+     * @param args Values for each placeholder, by index
+     * @return Label with the placeholders replaced
+     * @throws IllegalArgumentException if there are fewer arguments than placeholders
+     */
+    public Label render(Object... args) {
+        var start = LatencyTracker.begin();
+        try {
+            return renderValues(args);
+        } finally {
+            LatencyTracker.end(LatencyTracker.Phase.REBUILD, start);
+        }
+    }
+
+    private Label renderValues(Object[] args) {
+        if (args.length < argCount)
+            throw new IllegalArgumentException("Expected " + argCount + " arguments, got " + args.length);
+        var values = Arrays.stream(args).map(String::valueOf).toList();
+        synchronized (rendered) {
+            var cached = rendered.get(values);
+            if (cached != null) return cached;
+        }
+
+        var name = this.name != null ? this.name.component(values) : null;
+        var nameTag = this.name != null ? this.name.serialized(values) : null;
+        var hintLore = new ListTag();
+        for (var hint : hints) hintLore.add(hint.serialized(values));
+        // tooltip parts were hidden when the template was built
+        var label = LabelStacks.build(stacks, name, nameTag, hintLore, false, interval);
+
+        synchronized (rendered) {
+            rendered.put(values, label);
+        }
+        return label;
+    }
+
+    /**
+     * A line of text; either fixed and pre-serialized, or split around its placeholders.
+     *
+     * @param parts    Text between placeholders; one longer than <code>args</code>. Null if fixed.
+     * @param args     Placeholder indexes, in order of appearance
+     * @param fixed    The line if it has no placeholders
+     * @param fixedTag The line serialized, if it has no placeholders
+     */
+    private record Line(@Nullable String[] parts, int[] args, Style style, @Nullable Component fixed, @Nullable StringTag fixedTag) {
+        private static Line fixed(Component component) {
+            return new Line(null, new int[0], Style.EMPTY, component, LoreCache.serialize(component));
+        }
+
+        private static Line pattern(String pattern, Style style) {
+            var parts = new ArrayList<String>();
+            var args = new ArrayList<Integer>();
+            var start = 0;
+            var open = pattern.indexOf('{');
+            while (open >= 0) {
+                var close = pattern.indexOf('}', open);
+                if (close < 0) break;
+                var index = parseIndex(pattern.substring(open + 1, close));
+                if (index >= 0) {
+                    parts.add(pattern.substring(start, open));
+                    args.add(index);
+                    start = close + 1;
+                }
+                open = pattern.indexOf('{', index >= 0 ? close : open + 1);
+            }
+            if (args.isEmpty()) return fixed(Component.literal(pattern).withStyle(style));
+            parts.add(pattern.substring(start));
+            return new Line(parts.toArray(String[]::new), args.stream().mapToInt(Integer::intValue).toArray(), style, null, null);
+        }
+
+        private static int parseIndex(String text) {
+            if (text.isEmpty() || text.length() > 3) return -1;
+            for (int i = 0; i < text.length(); i++)
+                if (!Character.isDigit(text.charAt(i))) return -1;
+            return Integer.parseInt(text);
+        }
+
+        private int argCount() {
+            var count = 0;
+            for (int arg : args) count = Math.max(count, arg + 1);
+            return count;
+        }
+
+        private Component component(List<String> values) {
+            if (fixed != null) return fixed;
+            var builder = new StringBuilder(parts[0]);
+            for (int i = 0; i < args.length; i++)
+                builder.append(values.get(args[i])).append(parts[i + 1]);
+            return Component.literal(builder.toString()).withStyle(style);
+        }
+
+        private StringTag serialized(List<String> values) {
+            if (fixedTag != null) return fixedTag;
+            return StringTag.valueOf(Component.Serializer.toJson(component(values)));
+        }
+    }
+
+    public static class TemplateBuilder {
+        private final List<ItemStack> stacks = new ArrayList<>();
+        private int interval = 20;
+        @Nullable
+        private Line name = null;
+        private final List<Line> hints = new ArrayList<>();
+        private boolean keepLore = false;
+
+        private TemplateBuilder() {
+        }
+
+        public TemplateBuilder item(ItemLike item) {
+            this.stacks.add(new ItemStack(item));
+            return this;
+        }
+
+        public TemplateBuilder item(ItemStack stack) {
+            this.stacks.add(StackUtils.shareOrCopy(stack));
+            return this;
+        }
+
+        public TemplateBuilder interval(int interval) {
+            this.interval = Math.max(interval, 1);
+            return this;
+        }
+
+        /**
+         * Set a name without placeholders.
+         */
+        public TemplateBuilder name(Component name) {
+            this.name = Line.fixed(name);
+            return this;
+        }
+
+        /**
+         * Set a name, formatted with {@link Label#NORMAL}.
+         *
+         * @param pattern Name, which may contain placeholders
+         */
+        public TemplateBuilder name(String pattern) {
+            this.name = Line.pattern(pattern, Label.NORMAL);
+            return this;
+        }
+
+        public TemplateBuilder inputHint(Input input) {
+            this.hints.add(Line.fixed(LoreCache.hint(input)));
+            return this;
+        }
+
+        public TemplateBuilder inputHint(String action, Input input) {
+            return hint(Component.literal(action + ": ").withStyle(Label.HINT).append(LoreCache.hint(input)));
+        }
+
+        /**
+         * Add a hint without placeholders.
+         */
+        public TemplateBuilder hint(Component hint) {
+            this.hints.add(Line.fixed(hint));
+            return this;
+        }
+
+        /**
+         * Add a hint, formatted with {@link Label#HINT}.
+         *
+         * @param pattern Hint, which may contain placeholders
+         */
+        public TemplateBuilder hint(String pattern) {
+            this.hints.add(Line.pattern(pattern, Label.HINT));
+            return this;
+        }
+
+        public TemplateBuilder keepLore() {
+            this.keepLore = true;
+            return this;
+        }
+
+        public LabelTemplate build() {
+            if (stacks.size() == 0) throw new IllegalStateException("Label templates need at least one item");
+            if (!keepLore)
+                stacks.replaceAll(stack -> {
+                    if (stack.isEmpty()) return stack;
+                    // shared frozen stacks can't be changed in place
+                    var hidden = StackUtils.isFrozen(stack) ? stack.copy() : stack;
+                    for (ItemStack.TooltipPart part : ItemStack.TooltipPart.values())
+                        hidden.hideTooltipPart(part);
+                    return hidden;
+                });
+            return new LabelTemplate(List.copyOf(stacks), interval, name, List.copyOf(hints));
+        }
+    }
+}
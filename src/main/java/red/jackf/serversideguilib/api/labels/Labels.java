@@ -17,7 +17,7 @@ public class Labels {
     public static final Label CANCEL = Label.builder()
             .item(Items.BARRIER)
             .name(Component.translatable("gui.cancel").withStyle(Label.NORMAL))
-            .inputHint(new Input.LeftClick(false))
+            .inputHint(Input.LEFT_CLICK)
             .build();
 
     /**
@@ -26,7 +26,7 @@ public class Labels {
     public static final Label CLOSE = Label.builder()
             .item(Items.BARRIER)
             .name(Component.translatable("mco.selectServer.close").withStyle(Label.NORMAL))
-            .inputHint(new Input.LeftClick(false))
+            .inputHint(Input.LEFT_CLICK)
             .build();
 
     /**
@@ -38,4 +38,16 @@ public class Labels {
      * Blank label, used for if input is needed on an empty slot
      */
     public static final Label EMPTY = Label.builder().build();
+
+    /**
+     * Shown on async buttons while their work runs
+     */
+    public static final Label LOADING = Label.builder()
+            .item(Items.WHITE_STAINED_GLASS_PANE)
+            .item(Items.LIGHT_GRAY_STAINED_GLASS_PANE)
+            .item(Items.GRAY_STAINED_GLASS_PANE)
+            .item(Items.LIGHT_GRAY_STAINED_GLASS_PANE)
+            .interval(5)
+            .name("Loading…")
+            .build();
 }
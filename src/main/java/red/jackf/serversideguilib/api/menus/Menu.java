@@ -15,7 +15,7 @@ public abstract class Menu {
     }
 
     /**
-     * Called to open this menu. Create your {@link MenuBuilder} here, populate with {@link MenuBuilder#addButton(Integer, Button)},
+     * Called to open this menu. Create your {@link MenuBuilder} here, populate with {@link MenuBuilder#addButton(int, Button)},
      * then {@link MenuBuilder#open(ServerPlayer)} with the player.<br />
      * This may be called multiple times i.e. if you come back from a further menu.
      */
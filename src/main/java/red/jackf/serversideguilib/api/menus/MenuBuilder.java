@@ -1,33 +1,58 @@
 package red.jackf.serversideguilib.api.menus;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.MenuProvider;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.*;
+import net.minecraft.world.item.ItemStack;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import red.jackf.serversideguilib.api.SSGLConfig;
 import red.jackf.serversideguilib.api.buttons.Button;
 import red.jackf.serversideguilib.internal.ServerSideGuiLib;
+import red.jackf.serversideguilib.internal.utils.LatencyTracker;
 import red.jackf.serversideguilib.internal.utils.SealedMenu;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class MenuBuilder {
     public static final int SLOT_CLICKED_OUTSIDE = AbstractContainerMenu.SLOT_CLICKED_OUTSIDE;
     private final Component title;
+    @Nullable
+    private final MenuType<?> menuType;
     private final MenuType.MenuSupplier<?> menuConstructor;
-    private final Map<Integer, Button> inputs = new HashMap<>();
     private final int maxSlots;
+    private final Button[] buttons;
+    @Nullable
+    private Button outsideButton = null;
     private final List<MenuTicker> tickers = new ArrayList<>();
+    private final List<ComputedTicker> computedTickers = new ArrayList<>();
+    @Nullable
+    private Class<?> owner = null;
 
     public MenuBuilder(Component title, MenuType.MenuSupplier<?> menuConstructor, int maxSlots) {
+        this(title, null, menuConstructor, maxSlots);
+    }
+
+    /**
+     * Creates a MenuBuilder for a known menu type. If the player already has an SSGL menu of the same type and title open,
+     * {@link #open(ServerPlayer)} re-renders that menu in place rather than opening a new one.
+     *
+     * @param title           Title shown on the menu
+     * @param menuType        Type of menu that <code>menuConstructor</code> creates, or null if unknown
+     * @param menuConstructor Creates the menu
+     * @param maxSlots        Number of slots in the menu, excluding the player's inventory
+     */
+    public MenuBuilder(Component title, @Nullable MenuType<?> menuType, MenuType.MenuSupplier<?> menuConstructor, int maxSlots) {
         this.title = title;
+        this.menuType = menuType;
         this.menuConstructor = menuConstructor;
         this.maxSlots = maxSlots;
+        this.buttons = new Button[maxSlots];
     }
 
     /**
@@ -37,7 +62,7 @@ public class MenuBuilder {
      * @return MenuBuilder instance for the 5x1
      */
     public static MenuBuilder make5x1(Component title) {
-        return new MenuBuilder(title, HopperMenu::new, 5);
+        return new MenuBuilder(title, MenuType.HOPPER, HopperMenu::new, 5);
     }
 
     /**
@@ -47,7 +72,7 @@ public class MenuBuilder {
      * @return MenuBuilder instance for the 3x3
      */
     public static MenuBuilder make3x3(Component title) {
-        return new MenuBuilder(title, DispenserMenu::new, 9);
+        return new MenuBuilder(title, MenuType.GENERIC_3x3, DispenserMenu::new, 9);
     }
 
     /**
@@ -57,7 +82,7 @@ public class MenuBuilder {
      * @return MenuBuilder instance for the 9x1
      */
     public static MenuBuilder make9x1(Component title) {
-        return new MenuBuilder(title, ChestMenu::oneRow, 9);
+        return new MenuBuilder(title, MenuType.GENERIC_9x1, ChestMenu::oneRow, 9);
     }
 
     /**
@@ -67,7 +92,7 @@ public class MenuBuilder {
      * @return MenuBuilder instance for the 9x2
      */
     public static MenuBuilder make9x2(Component title) {
-        return new MenuBuilder(title, ChestMenu::twoRows, 18);
+        return new MenuBuilder(title, MenuType.GENERIC_9x2, ChestMenu::twoRows, 18);
     }
 
     /**
@@ -77,7 +102,7 @@ public class MenuBuilder {
      * @return MenuBuilder instance for the 9x3
      */
     public static MenuBuilder make9x3(Component title) {
-        return new MenuBuilder(title, ChestMenu::threeRows, 27);
+        return new MenuBuilder(title, MenuType.GENERIC_9x3, ChestMenu::threeRows, 27);
     }
 
     /**
@@ -87,7 +112,7 @@ public class MenuBuilder {
      * @return MenuBuilder instance for the 9x4
      */
     public static MenuBuilder make9x4(Component title) {
-        return new MenuBuilder(title, ChestMenu::fourRows, 36);
+        return new MenuBuilder(title, MenuType.GENERIC_9x4, ChestMenu::fourRows, 36);
     }
 
     /**
@@ -97,7 +122,7 @@ public class MenuBuilder {
      * @return MenuBuilder instance for the 9x5
      */
     public static MenuBuilder make9x5(Component title) {
-        return new MenuBuilder(title, ChestMenu::fiveRows, 45);
+        return new MenuBuilder(title, MenuType.GENERIC_9x5, ChestMenu::fiveRows, 45);
     }
 
     /**
@@ -107,7 +132,7 @@ public class MenuBuilder {
      * @return MenuBuilder instance for the 9x6
      */
     public static MenuBuilder make9x6(Component title) {
-        return new MenuBuilder(title, ChestMenu::sixRows, 54);
+        return new MenuBuilder(title, MenuType.GENERIC_9x6, ChestMenu::sixRows, 54);
     }
 
     /**
@@ -117,15 +142,37 @@ public class MenuBuilder {
      *               Can be {@link AbstractContainerMenu#SLOT_CLICKED_OUTSIDE} = -999 to run when clicked outside the menu.
      * @param button Button to place in the slot
      */
-    public void addButton(Integer slot, Button button) {
-        if (slot != SLOT_CLICKED_OUTSIDE && (slot >= maxSlots || slot < -maxSlots)) {
+    public void addButton(int slot, Button button) {
+        if (slot == SLOT_CLICKED_OUTSIDE) {
+            if (this.outsideButton != null)
+                ServerSideGuiLib.LOGGER.warn("Overwriting button at slot %d".formatted(slot));
+            this.outsideButton = button;
+            return;
+        }
+        if (slot >= maxSlots || slot < -maxSlots) {
             ServerSideGuiLib.LOGGER.warn("Tried to add button outside of given slots: %d".formatted(slot));
             return;
         }
-        if (slot < 0 && slot != SLOT_CLICKED_OUTSIDE) slot = maxSlots + slot;
-        if (this.inputs.containsKey(slot))
+        if (slot < 0) slot = maxSlots + slot;
+        if (this.buttons[slot] != null)
             ServerSideGuiLib.LOGGER.warn("Overwriting button at slot %d".formatted(slot));
-        this.inputs.put(slot, button);
+        this.buttons[slot] = button;
+    }
+
+    /**
+     * Set which menu this is built by, to group its click latency under; see {@link SSGLConfig#latencyTracking()}. If not
+     * set, it's found from the stack when opened while tracking is on.
+     *
+     * @param owner Menu building this
+     */
+    public void setOwner(Menu owner) {
+        this.owner = owner.getClass();
+    }
+
+    @Nullable
+    private Class<?> owner() {
+        if (owner == null) owner = LatencyTracker.callingMenu();
+        return owner;
     }
 
     public void addTicker(MenuTicker ticker) {
@@ -136,6 +183,35 @@ public class MenuBuilder {
         void tick(AbstractContainerMenu menu, long ticksOpen);
     }
 
+    /**
+     * Adds a ticker that calculates slot contents off the server thread. Use this over {@link #addTicker(MenuTicker)}
+     * for expensive per-tick rendering, such as stats, timers or search results.
+     *
+     * @param ticker Ticker to add
+     */
+    public void addComputedTicker(ComputedTicker ticker) {
+        this.computedTickers.add(ticker);
+    }
+
+    /**
+     * A ticker split into two steps: {@link #compute(long)} works out what the menu's slots should contain, and runs in
+     * parallel with every other open menu's computed tickers off the server thread. The results are then written to the
+     * menu's slots on the server thread at the start of the following tick. If a computation is still running when
+     * its menu is next ticked, that tick is skipped for the menu rather than queueing another.
+     */
+    public interface ComputedTicker {
+        /**
+         * Calculate the intended contents of the menu. This does not run on the server thread, so must not touch the
+         * world, players or the menu itself.
+         *
+         * @param ticksOpen Ticks since the menu was opened
+         * @return Map of slot IDs to the stacks they should show; slots not present are left as-is. Null if nothing
+         * needs to change.
+         */
+        @Nullable
+        Int2ObjectMap<ItemStack> compute(long ticksOpen);
+    }
+
     /**
      * Creates a {@link MenuProvider} to open this, generally used in {@link Player#openMenu(MenuProvider)}.
      */
@@ -149,7 +225,7 @@ public class MenuBuilder {
             @Override
             public AbstractContainerMenu createMenu(int invIndex, Inventory inventory, Player player) {
                 var menu = menuConstructor.create(invIndex, inventory);
-                ((SealedMenu) menu).ssgl_seal(inputs, tickers);
+                ((SealedMenu) menu).ssgl_seal(player, title, buttons.clone(), outsideButton, tickers, computedTickers, owner());
                 return menu;
             }
 
@@ -161,11 +237,21 @@ public class MenuBuilder {
     }
 
     /**
-     * Shorthand to open this for a player
+     * Shorthand to open this for a player. If the player already has an SSGL menu open with the same type and title, it
+     * is re-rendered in place instead; this keeps the player's cursor where it is, and only sends the slots that changed.
      *
      * @param player Player to open this menu for.
      */
     public void open(ServerPlayer player) {
-        player.openMenu(provider());
+        var start = LatencyTracker.begin();
+        try {
+            if (menuType != null && ((SealedMenu) player.containerMenu).ssgl_canRerender(menuType, title)) {
+                ((SealedMenu) player.containerMenu).ssgl_seal(player, title, buttons.clone(), outsideButton, tickers, computedTickers, owner());
+                return;
+            }
+            player.openMenu(provider());
+        } finally {
+            LatencyTracker.end(LatencyTracker.Phase.SEAL, start);
+        }
     }
 }
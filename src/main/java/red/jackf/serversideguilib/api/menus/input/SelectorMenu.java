@@ -8,6 +8,7 @@ import net.minecraft.world.item.Items;
 import red.jackf.serversideguilib.api.buttons.Button;
 import red.jackf.serversideguilib.api.buttons.Input;
 import red.jackf.serversideguilib.api.labels.Label;
+import red.jackf.serversideguilib.api.labels.LabelTemplate;
 import red.jackf.serversideguilib.api.menus.CancellableCallback;
 import red.jackf.serversideguilib.api.menus.MenuBuilder;
 import red.jackf.serversideguilib.api.menus.SucceedableMenu;
@@ -26,6 +27,11 @@ import java.util.List;
 public class SelectorMenu<T> extends SucceedableMenu<T> {
     private static final int PAGINATION_THRESHOLD = 54;
     private static final int OPTIONS_PER_PAGE = 8 * 6;
+    private static final LabelTemplate FILTER_LABEL = LabelTemplate.builder().item(Items.WRITABLE_BOOK)
+            .name("Current filter: {0}")
+            .inputHint("Set Filter", Input.LEFT_CLICK)
+            .inputHint("Clear Filter", Input.RIGHT_CLICK)
+            .build();
     private final Component title;
     private final List<Pair<Label, T>> options;
     private final List<Pair<Label, T>> filteredOptions = new ArrayList<>();
@@ -73,6 +79,7 @@ public class SelectorMenu<T> extends SucceedableMenu<T> {
     public void open() {
         if (!paginated) {
             var menu = smallestMenuThatFits(title, options.size() + 1);
+            menu.setOwner(this);
 
             for (int i = 0; i < options.size(); i++) {
                 var option = options.get(i);
@@ -83,6 +90,7 @@ public class SelectorMenu<T> extends SucceedableMenu<T> {
             menu.open(player);
         } else { // 9x6 with 48 per page and right hand for page controls
             var menu = MenuBuilder.make9x6(title);
+            menu.setOwner(this);
 
             var pageOptions = filteredOptions.subList((page - 1) * OPTIONS_PER_PAGE, Math.min(page * OPTIONS_PER_PAGE, filteredOptions.size()));
             for (int i = 0; i < pageOptions.size(); i++) {
@@ -114,11 +122,7 @@ public class SelectorMenu<T> extends SucceedableMenu<T> {
                 }));
 
             // search
-            menu.addButton(35, new Button(Label.builder().item(Items.WRITABLE_BOOK)
-                    .name("Current filter: " + this.filter)
-                    .inputHint("Set Filter", new Input.LeftClick(false))
-                    .inputHint("Clear Filter", new Input.RightClick(false))
-                    .build(), input -> {
+            menu.addButton(35, new Button(FILTER_LABEL.render(this.filter), input -> {
                 if (input instanceof Input.LeftClick click && !click.shift()) {
                     Sounds.interact(player);
                     Menus.string(player, Component.literal("Set Filter"), null, this.filter, new CancellableCallback<>(s -> {
@@ -4,6 +4,7 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.inventory.AnvilMenu;
 import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
 import org.jetbrains.annotations.Nullable;
 import red.jackf.serversideguilib.api.buttons.Button;
@@ -29,6 +30,14 @@ public class TextMenu extends SucceedableMenu<String> {
     private final Label additional;
     @Nullable
     private final Predicate<String> predicate;
+    /**
+     * Result label without a name; the text is put on a copy of this for each valid input.
+     */
+    private final ItemStack resultTemplate = Label.builder()
+            .item(RESULT_ITEM)
+            .inputHint("Accept", Input.LEFT_CLICK)
+            .build()
+            .asStack();
 
     protected TextMenu(ServerPlayer player, Component title, @Nullable Label additional, String startText, @Nullable Predicate<String> predicate, CancellableCallback<String> callback) {
         super(player, callback);
@@ -41,12 +50,13 @@ public class TextMenu extends SucceedableMenu<String> {
     @Override
     public void open() {
         var menu = new MenuBuilder(title, AnvilMenu::new, 3);
+        menu.setOwner(this);
 
         menu.addButton(AnvilMenu.INPUT_SLOT, new Button(Label.builder()
                 .item(Items.BARRIER)
                 .name(startText)
-                .inputHint("Cancel", new Input.LeftClick(false))
-                .inputHint("Reset", new Input.RightClick(false))
+                .inputHint("Cancel", Input.LEFT_CLICK)
+                .inputHint("Reset", Input.RIGHT_CLICK)
                 .build(), input -> {
             if (input instanceof Input.LeftClick leftClick && !leftClick.shift()) {
                 this.cancel();
@@ -59,6 +69,8 @@ public class TextMenu extends SucceedableMenu<String> {
         // blank label because that gets overwritten but the listener does not
         menu.addButton(AnvilMenu.RESULT_SLOT, new Button(Labels.EMPTY, input -> {
             if (input instanceof Input.LeftClick click && !click.shift()) {
+                // text typed since the last validation hasn't been checked yet
+                if (player.containerMenu instanceof SSGLAnvilMenu anvilMenu) anvilMenu.ssgl_refreshResult();
                 var stack = player.containerMenu.slots.get(AnvilMenu.RESULT_SLOT).getItem();
                 if (stack.is(RESULT_ITEM)) {
                     complete(stack.getHoverName().getString());
@@ -72,6 +84,8 @@ public class TextMenu extends SucceedableMenu<String> {
 
         menu.open(player);
 
-        if (predicate != null) ((SSGLAnvilMenu) player.containerMenu).ssgl_setTextPredicate(predicate);
+        var anvilMenu = (SSGLAnvilMenu) player.containerMenu;
+        anvilMenu.ssgl_setResultTemplate(resultTemplate);
+        if (predicate != null) anvilMenu.ssgl_setTextPredicate(predicate);
     }
 }
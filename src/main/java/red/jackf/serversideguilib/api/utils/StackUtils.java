@@ -7,6 +7,7 @@ import net.minecraft.network.chat.ComponentUtils;
 import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.network.chat.Style;
 import net.minecraft.world.item.ItemStack;
+import red.jackf.serversideguilib.internal.utils.FrozenStack;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -37,4 +38,33 @@ public class StackUtils {
         }
         return list;
     }
+
+    /**
+     * Freeze a stack, making it immutable so it can be shared without copying. Labels' stacks are frozen when built.
+     * Modifying a frozen stack throws in a development environment, and isn't checked otherwise; copy it first. Empty
+     * stacks are left alone, as copying one gives the shared {@link ItemStack#EMPTY}.
+     * @param stack Stack to freeze
+     * @return The same stack
+     */
+    public static ItemStack freeze(ItemStack stack) {
+        if (!stack.isEmpty()) ((FrozenStack) (Object) stack).ssgl_freeze();
+        return stack;
+    }
+
+    /**
+     * @param stack Stack to check
+     * @return Whether the stack has been frozen with {@link #freeze(ItemStack)}
+     */
+    public static boolean isFrozen(ItemStack stack) {
+        return ((FrozenStack) (Object) stack).ssgl_isFrozen();
+    }
+
+    /**
+     * Get a copy of a stack that is safe to hold on to; frozen stacks are returned as-is.
+     * @param stack Stack to copy
+     * @return The stack if frozen, or a copy otherwise
+     */
+    public static ItemStack shareOrCopy(ItemStack stack) {
+        return isFrozen(stack) ? stack : stack.copy();
+    }
 }
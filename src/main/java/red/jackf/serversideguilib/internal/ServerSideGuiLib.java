@@ -3,9 +3,12 @@ package red.jackf.serversideguilib.internal;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.network.chat.Component;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import red.jackf.serversideguilib.internal.test.TestMenu;
+import red.jackf.serversideguilib.internal.utils.LatencyTracker;
+import red.jackf.serversideguilib.internal.utils.Metrics;
 
 import static net.minecraft.commands.Commands.literal;
 
@@ -17,6 +20,32 @@ public class ServerSideGuiLib implements ModInitializer {
      */
     @Override
     public void onInitialize() {
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) ->
+                dispatcher.register(literal("ssgl").requires(source -> source.hasPermission(2))
+                        .then(literal("stats").executes(ctx -> {
+                            Metrics.all().forEach((name, counter) ->
+                                    ctx.getSource().sendSuccess(Component.literal(name + ": " + counter.describe()), false));
+                            return Metrics.all().size();
+                        }))
+                        .then(literal("latency").executes(ctx -> {
+                                    var summary = LatencyTracker.summary();
+                                    summary.forEach(line -> ctx.getSource().sendSuccess(Component.literal(line), false));
+                                    return summary.size();
+                                })
+                                .then(literal("log").executes(ctx -> {
+                                    var summary = LatencyTracker.summary();
+                                    LOGGER.info("Click latency by menu:");
+                                    summary.forEach(LOGGER::info);
+                                    ctx.getSource().sendSuccess(Component.literal("Logged click latency"), false);
+                                    return summary.size();
+                                }))
+                                .then(literal("reset").executes(ctx -> {
+                                    LatencyTracker.reset();
+                                    ctx.getSource().sendSuccess(Component.literal("Reset click latency"), false);
+                                    return 0;
+                                }))))
+        );
+
         if (FabricLoader.getInstance().isDevelopmentEnvironment())
             CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) ->
                     dispatcher.register(literal("ssgltest").executes(ctx -> {
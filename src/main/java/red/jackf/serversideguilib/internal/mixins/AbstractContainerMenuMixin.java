@@ -1,11 +1,19 @@
 package red.jackf.serversideguilib.internal.mixins;
 
+import com.google.common.base.Suppliers;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import net.minecraft.core.NonNullList;
+import net.minecraft.network.chat.Component;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.minecraft.world.inventory.ClickType;
+import net.minecraft.world.inventory.ContainerSynchronizer;
+import net.minecraft.world.inventory.DataSlot;
+import net.minecraft.world.inventory.MenuType;
 import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
 import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
@@ -13,69 +21,355 @@ import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import red.jackf.serversideguilib.api.SSGLConfig;
+import red.jackf.serversideguilib.api.buttons.AsyncAction;
 import red.jackf.serversideguilib.api.buttons.Button;
 import red.jackf.serversideguilib.api.buttons.Input;
 import red.jackf.serversideguilib.api.labels.Label;
 import red.jackf.serversideguilib.api.menus.MenuBuilder;
+import red.jackf.serversideguilib.api.utils.StackUtils;
+import red.jackf.serversideguilib.internal.ServerSideGuiLib;
+import red.jackf.serversideguilib.internal.utils.ClickLimiter;
+import red.jackf.serversideguilib.internal.utils.HeadProfiles;
+import red.jackf.serversideguilib.internal.utils.LatencyTracker;
+import red.jackf.serversideguilib.internal.utils.Metrics;
+import red.jackf.serversideguilib.internal.utils.PacketSizes;
 import red.jackf.serversideguilib.internal.utils.SealedMenu;
 import red.jackf.serversideguilib.internal.utils.Ticker;
+import red.jackf.serversideguilib.internal.utils.TrackedSlot;
 
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Adds handlers to 'button' clicking
  */
 @Mixin(AbstractContainerMenu.class)
-public class AbstractContainerMenuMixin implements SealedMenu {
+public abstract class AbstractContainerMenuMixin implements SealedMenu {
     @Shadow
     @Final
     public NonNullList<Slot> slots;
+    @Shadow
+    @Final
+    private List<DataSlot> dataSlots;
+    @Shadow
+    private boolean suppressRemoteUpdates;
+    @Shadow
+    @Final
+    private NonNullList<ItemStack> remoteSlots;
+    @Shadow
+    private ItemStack remoteCarried;
+    @Shadow
+    @Nullable
+    private ContainerSynchronizer synchronizer;
+    @Shadow
+    @Final
+    @Nullable
+    private MenuType<?> menuType;
+    /**
+     * Buttons by slot; null if this isn't an SSGL menu.
+     */
+    @Unique
+    private Button @Nullable [] buttons = null;
+    @Unique
+    @Nullable
+    private Button outsideButton = null;
+    @Unique
+    @Nullable
+    private Component title = null;
+    /**
+     * SSGL slots that may differ from the client's copy since the last broadcast.
+     */
+    @Unique
+    private final BitSet dirtySlots = new BitSet();
+    /**
+     * Player inventory slots, which can change outside of SSGL so are always compared.
+     */
+    @Unique
+    private final BitSet inventorySlots = new BitSet();
+    /**
+     * Slots that differ from the client's copy, waiting to be sent this broadcast.
+     */
+    @Unique
+    private final BitSet changedSlots = new BitSet();
+    /**
+     * Loading labels of async buttons still running, by the slot they were clicked in. Kept across re-renders.
+     */
+    @Unique
+    private final Int2ObjectMap<Label> pendingAsync = new Int2ObjectOpenHashMap<>();
     @Unique
+    private boolean swallowedClick = false;
     @Nullable
-    private Map<Integer, Button> inputs = null;
+    @Unique
+    private Class<?> latencyOwner = null;
+    @Unique
+    private static final int[] NO_DATA_SLOTS = new int[0];
+
+    @Shadow
+    protected abstract void triggerSlotListeners(int slotIndex, ItemStack stack, Supplier<ItemStack> supplier);
+
+    @Shadow
+    protected abstract void synchronizeCarriedToRemote();
+
+    @Shadow
+    protected abstract void updateDataSlotListeners(int id, int value);
+
+    @Shadow
+    protected abstract void synchronizeDataSlotToRemote(int id, int value);
 
     @Inject(method = "doClick(IILnet/minecraft/world/inventory/ClickType;Lnet/minecraft/world/entity/player/Player;)V", at = @At("HEAD"), cancellable = true)
     private void serversideguilib_hooks(int slotId, int button, ClickType clickType, Player player, CallbackInfo ci) {
         // is not a SSGL screen
-        if (this.inputs == null) return;
-        // clicked outside if this screen isn't handling it
-        if (slotId == AbstractContainerMenu.SLOT_CLICKED_OUTSIDE && !this.inputs.containsKey(slotId)) return;
-        if (slotId != AbstractContainerMenu.SLOT_CLICKED_OUTSIDE && this.slots.get(slotId).container instanceof Inventory)
-            return;
+        if (this.buttons == null) return;
+        var arrived = System.nanoTime();
+        this.swallowedClick = false;
+        Button clicked;
+        if (slotId == AbstractContainerMenu.SLOT_CLICKED_OUTSIDE) {
+            // clicked outside if this screen isn't handling it
+            if (this.outsideButton == null) return;
+            clicked = this.outsideButton;
+        } else {
+            if (slotId >= 0 && this.inventorySlots.get(slotId)) return;
+            clicked = slotId >= 0 && slotId < this.buttons.length ? this.buttons[slotId] : null;
+        }
         ci.cancel(); // prevent taking items from menu
+        this.swallowedClick = true;
+        if (clicked == null) return;
         var parsed = Input.getInputFromRaw(slotId, button, clickType);
         if (parsed == null) return;
-        var input = this.inputs.get(slotId);
-        if (input == null) return;
-        input.handler().accept(parsed);
+        if (clicked.rateLimited() && !ClickLimiter.allow(player, slotId, parsed)) return;
+        LatencyTracker.handlerStarting(this.latencyOwner, arrived);
+        if (clicked.asyncAction() != null) {
+            startAsync(player, slotId, clicked.asyncAction(), parsed);
+        } else {
+            clicked.handler().accept(parsed);
+        }
+        LatencyTracker.handlerFinished();
+    }
+
+    @Unique
+    private <T> void startAsync(Player player, int slotId, AsyncAction<T> async, Input input) {
+        var server = player.getServer();
+        if (server == null) return;
+        if (this.pendingAsync.containsKey(slotId)) {
+            Metrics.ASYNC_CLICKS_IGNORED.increment();
+            return;
+        }
+        CompletableFuture<T> future;
+        try {
+            future = async.start().apply(input);
+        } catch (Exception ex) {
+            ServerSideGuiLib.LOGGER.error("Error starting async button handler", ex);
+            return;
+        }
+        if (future == null) {
+            ServerSideGuiLib.LOGGER.error("Async button handler returned no future");
+            return;
+        }
+        this.pendingAsync.put(slotId, async.loading());
+        var menu = (AbstractContainerMenu) (Object) this;
+        if (slotId >= 0) showLabel(menu, slotId, async.loading());
+
+        // the work could take a while; don't keep a closed menu around for it
+        var menuRef = new WeakReference<>(menu);
+        future.whenCompleteAsync((result, ex) -> {
+            var target = menuRef.get();
+            if (target == null || !Ticker.INSTANCE.isTracked(target) || !((SealedMenu) target).ssgl_finishAsync(slotId))
+                return;
+            try {
+                if (ex != null) throw ex;
+                async.onComplete().accept(result);
+            } catch (Throwable t) {
+                ServerSideGuiLib.LOGGER.error("Error in async button handler", t);
+            }
+        }, server);
+    }
+
+    @Unique
+    private void showLabel(AbstractContainerMenu menu, int slotId, Label label) {
+        Ticker.INSTANCE.removeAnimated(menu, slotId);
+        var slot = this.slots.get(slotId);
+        slot.set(label.stacks().get(0));
+        if (label instanceof Label.Animated animated) Ticker.INSTANCE.addAnimated(menu, slot, animated);
+    }
+
+    @Override
+    public boolean ssgl_finishAsync(int slotId) {
+        if (this.buttons == null) return false;
+        this.pendingAsync.remove(slotId);
+        // the menu may have been re-rendered since; whatever button is there now gets its label back
+        var current = slotId >= 0 && slotId < this.buttons.length ? this.buttons[slotId] : null;
+        if (current != null) showLabel((AbstractContainerMenu) (Object) this, slotId, current.label());
+        return true;
+    }
+
+    /**
+     * Replaces vanilla's per-tick comparison of every slot for SSGL menus, only checking slots that SSGL has written to
+     * since the last broadcast, as well as the player's inventory. Every so often all slots are compared anyway, to pick
+     * up any changes made outside the library.
+     * <p>
+     * Changed slots are then sent together, either as a packet each or as one content packet, whichever is smaller.</p>
+     */
+    @Inject(method = "broadcastChanges()V", at = @At("HEAD"), cancellable = true)
+    private void serversideguilib_broadcastDirtyChanges(CallbackInfo ci) {
+        if (this.buttons == null) return;
+        var sweepInterval = SSGLConfig.dirtySlotSweepInterval();
+        if (sweepInterval == 0) return;
+        ci.cancel();
+
+        if (Ticker.INSTANCE.currentTick() % sweepInterval == 0) ssgl_markAllDirty();
+
+        for (int i = dirtySlots.nextSetBit(0); i >= 0 && i < this.slots.size(); i = dirtySlots.nextSetBit(i + 1))
+            if (!inventorySlots.get(i)) collectSlot(i);
+        for (int i = inventorySlots.nextSetBit(0); i >= 0; i = inventorySlots.nextSetBit(i + 1))
+            collectSlot(i);
+        // remote copies aren't updated while suppressed, so these still need checking next time
+        if (!this.suppressRemoteUpdates) dirtySlots.clear();
+        if (!changedSlots.isEmpty()) flushChangedSlots();
+
+        this.synchronizeCarriedToRemote();
+
+        for (int i = 0; i < this.dataSlots.size(); i++) {
+            var dataSlot = this.dataSlots.get(i);
+            int value = dataSlot.get();
+            if (dataSlot.checkAndClearUpdateFlag()) this.updateDataSlotListeners(i, value);
+            this.synchronizeDataSlotToRemote(i, value);
+        }
+    }
+
+    @Unique
+    private void collectSlot(int slotId) {
+        var stack = this.slots.get(slotId).getItem();
+        this.triggerSlotListeners(slotId, stack, Suppliers.memoize(() -> StackUtils.shareOrCopy(stack)));
+        if (!this.suppressRemoteUpdates && !ItemStack.matches(this.remoteSlots.get(slotId), stack))
+            changedSlots.set(slotId);
+    }
+
+    @Unique
+    private void flushChangedSlots() {
+        var menu = (AbstractContainerMenu) (Object) this;
+        var asContent = false;
+        if (this.synchronizer != null && changedSlots.cardinality() > 1) {
+            var slotPacketBytes = 0;
+            for (int i = changedSlots.nextSetBit(0); i >= 0; i = changedSlots.nextSetBit(i + 1))
+                slotPacketBytes += PacketSizes.SLOT_PACKET_OVERHEAD + PacketSizes.stack(this.slots.get(i).getItem());
+            // unchanged slots are resent as they are on the client, i.e. the remote copies
+            var contentPacketBytes = PacketSizes.CONTENT_PACKET_OVERHEAD + PacketSizes.stack(menu.getCarried());
+            for (int i = 0; i < this.slots.size(); i++)
+                contentPacketBytes += PacketSizes.stack(changedSlots.get(i) ? this.slots.get(i).getItem() : this.remoteSlots.get(i));
+            asContent = contentPacketBytes < slotPacketBytes;
+        }
+
+        for (int i = changedSlots.nextSetBit(0); i >= 0; i = changedSlots.nextSetBit(i + 1)) {
+            // label stacks are frozen, so the client's copy can share them
+            var copy = StackUtils.shareOrCopy(this.slots.get(i).getItem());
+            this.remoteSlots.set(i, copy);
+            if (!asContent && this.synchronizer != null) this.synchronizer.sendSlotChange(menu, i, copy);
+        }
+        changedSlots.clear();
+
+        if (asContent) {
+            // the content packet also sets the cursor, so carried is brought up to date here too
+            this.remoteCarried = menu.getCarried().copy();
+            this.synchronizer.sendInitialData(menu, this.remoteSlots, this.remoteCarried, NO_DATA_SLOTS);
+            Metrics.FLUSHED_AS_CONTENT.increment();
+        } else if (this.synchronizer != null) {
+            Metrics.FLUSHED_AS_SLOTS.increment();
+        }
+    }
+
+    // vanilla's full resync; label stacks are frozen, so the client's copy can share them
+    @Redirect(method = "sendAllDataToRemote()V", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/item/ItemStack;copy()Lnet/minecraft/world/item/ItemStack;"))
+    private ItemStack serversideguilib_shareFrozenRemote(ItemStack stack) {
+        return StackUtils.shareOrCopy(stack);
+    }
+
+    // the client's copy changed, i.e. from it predicting a click
+    @Inject(method = {"setRemoteSlot(ILnet/minecraft/world/item/ItemStack;)V", "setRemoteSlotNoCopy(ILnet/minecraft/world/item/ItemStack;)V"}, at = @At("HEAD"))
+    private void serversideguilib_markRemoteChanged(int slotId, ItemStack stack, CallbackInfo ci) {
+        if (this.buttons != null) ssgl_markDirty(slotId);
     }
 
     @Inject(method = "removed(Lnet/minecraft/world/entity/player/Player;)V", at = @At("HEAD"))
     private void serversideguilib_removeTrackedAnimated(CallbackInfo ci) {
+        // vanilla menus never get tracked, so don't bother looking them up
+        if (this.buttons == null) return;
         Ticker.INSTANCE.removed((AbstractContainerMenu) (Object) this);
     }
 
-    public void ssgl_seal(Map<Integer, Button> inputs, List<MenuBuilder.MenuTicker> tickers) {
+    public void ssgl_seal(Player player, Component title, Button[] buttons, @Nullable Button outsideButton, List<MenuBuilder.MenuTicker> tickers, List<MenuBuilder.ComputedTicker> computedTickers, @Nullable Class<?> owner) {
         var menu = (AbstractContainerMenu) (Object) this;
-        this.inputs = inputs;
+        // writes from handlers and tickers mark their slot dirty through this
+        for (var slot : this.slots) ((TrackedSlot) slot).ssgl_setOwner(this);
+        inventorySlots.clear();
+        for (int i = 0; i < this.slots.size(); i++)
+            if (this.slots.get(i).container instanceof Inventory) inventorySlots.set(i);
+        // re-rendering; a reopened menu would start empty, so clear whatever the new layout doesn't fill, including
+        // anything the old layout's tickers and handlers wrote
+        if (this.buttons != null)
+            for (int slotId = 0; slotId < this.slots.size(); slotId++) {
+                if (inventorySlots.get(slotId) || (slotId < buttons.length && buttons[slotId] != null)) continue;
+                var slot = this.slots.get(slotId);
+                if (!slot.getItem().isEmpty()) slot.set(ItemStack.EMPTY);
+            }
+        this.buttons = buttons;
+        this.outsideButton = outsideButton;
+        this.title = title;
+        this.latencyOwner = owner;
+        Ticker.INSTANCE.track(menu, player);
         if (tickers.size() > 0)
             tickers.forEach(ticker -> Ticker.INSTANCE.addMenuTicker(menu, ticker));
-        inputs.forEach((slotId, button) -> {
-            if (slotId != AbstractContainerMenu.SLOT_CLICKED_OUTSIDE) {
-                var slot = this.slots.get(slotId);
-                var label = button.label();
-                if (label instanceof Label.Animated animated) {
-                    Ticker.INSTANCE.addAnimated(menu, slot, animated);
-                }
-                slot.set(label.stacks().get(0));
+        computedTickers.forEach(ticker -> Ticker.INSTANCE.addComputedTicker(menu, ticker));
+        for (int slotId = 0; slotId < buttons.length; slotId++) {
+            var button = buttons[slotId];
+            if (button == null) continue;
+            var slot = this.slots.get(slotId);
+            var label = button.label();
+            slot.set(label.stacks().get(0));
+            if (label instanceof Label.Animated animated) {
+                Ticker.INSTANCE.addAnimated(menu, slot, animated);
+            } else if (HeadProfiles.needsProfile(slot.getItem()) && player.getServer() != null) {
+                HeadProfiles.patchWhenResolved(player.getServer(), menu, slotId, slot.getItem());
             }
-        });
+        }
+        // async work started from the old layout is still running, and won't be started again until it finishes
+        for (var pending : this.pendingAsync.int2ObjectEntrySet()) {
+            var slotId = pending.getIntKey();
+            if (slotId >= 0 && slotId < buttons.length && buttons[slotId] != null)
+                showLabel(menu, slotId, pending.getValue());
+        }
+        ssgl_markAllDirty();
     }
 
     @Override
     public boolean ssgl_isSealed() {
-        return inputs != null;
+        return buttons != null;
+    }
+
+    @Override
+    public void ssgl_markDirty(int slotId) {
+        if (slotId >= 0) dirtySlots.set(slotId);
+    }
+
+    @Override
+    public void ssgl_markAllDirty() {
+        dirtySlots.set(0, this.slots.size());
+    }
+
+    @Override
+    public boolean ssgl_takeSwallowedClick() {
+        var swallowed = this.swallowedClick;
+        this.swallowedClick = false;
+        return swallowed;
+    }
+
+    @Override
+    public boolean ssgl_canRerender(MenuType<?> type, Component title) {
+        return buttons != null && this.menuType == type && title.equals(this.title);
     }
 }
@@ -1,5 +1,6 @@
 package red.jackf.serversideguilib.internal.mixins;
 
+import net.minecraft.network.chat.Component;
 import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.minecraft.world.inventory.AnvilMenu;
 import net.minecraft.world.inventory.MenuType;
@@ -8,15 +9,21 @@ import net.minecraft.world.item.Items;
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.Opcodes;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import red.jackf.serversideguilib.api.SSGLConfig;
 import red.jackf.serversideguilib.api.buttons.Input;
 import red.jackf.serversideguilib.api.labels.Label;
 import red.jackf.serversideguilib.api.menus.input.TextMenu;
+import red.jackf.serversideguilib.api.utils.StackUtils;
+import red.jackf.serversideguilib.internal.utils.LruCache;
+import red.jackf.serversideguilib.internal.utils.Metrics;
 import red.jackf.serversideguilib.internal.utils.SSGLAnvilMenu;
 import red.jackf.serversideguilib.internal.utils.SealedMenu;
+import red.jackf.serversideguilib.internal.utils.Ticker;
 
 import java.util.function.Predicate;
 
@@ -25,23 +32,41 @@ import java.util.function.Predicate;
  */
 @Mixin(AnvilMenu.class)
 public abstract class AnvilMenuMixin extends AbstractContainerMenu implements SSGLAnvilMenu {
+    private static final ItemStack INVALID = Label.item(Items.BARRIER, "Invalid Input").stacks().get(0);
+
+    private static final int RESULT_CACHE_SIZE = 32;
+
     /**
-     * This looks dodgy but has a reason: if we don't manually overwrite the output slot every text field update,
-     * the client will do it on its own, which results in an empty slot. We can't send the same stack to a slot again, so
-     * we alternate each time to keep the invalid label there.
+     * Result for anvils without a template of their own; rendered the same way, so typed text isn't built as a label.
      */
-    private static final ItemStack INVALID1 = Label.item(Items.BARRIER, "Invalid Input").stacks().get(0);
-    private static final ItemStack INVALID2 = Label.item(Items.BARRIER, "Invalid Input").stacks().get(0);
+    private static final ItemStack DEFAULT_RESULT_TEMPLATE = Label.builder()
+            .item(TextMenu.RESULT_ITEM)
+            .inputHint("Accept", Input.LEFT_CLICK)
+            .build()
+            .asStack();
 
-    static {
-        INVALID2.getOrCreateTag().putBoolean("ssgl_itemToggleHack", true);
-    }
+    /**
+     * Shown while typed text waits out the debounce, if that's longer than a tick.
+     */
+    private static final ItemStack VALIDATING = Label.item(Items.CLOCK, "Validating…").stacks().get(0);
 
-    @Unique
-    private boolean invalidToggleHack;
+    @Shadow
+    private String itemName;
     @Nullable
     @Unique
     private Predicate<String> predicate;
+    @Nullable
+    @Unique
+    private ItemStack resultTemplate;
+    /**
+     * Rendered valid results by text, so backspacing and retyping doesn't render the same stack again.
+     */
+    @Unique
+    private final LruCache<String, ItemStack> resultCache = new LruCache<>(RESULT_CACHE_SIZE);
+    @Unique
+    private long nextRefreshTick = 0;
+    @Unique
+    private boolean refreshPending = false;
 
     protected AnvilMenuMixin(@Nullable MenuType<?> menuType, int i) {
         super(menuType, i);
@@ -53,22 +78,70 @@ public abstract class AnvilMenuMixin extends AbstractContainerMenu implements SS
         this.predicate = predicate;
     }
 
+    @Override
+    public void ssgl_setResultTemplate(ItemStack template) {
+        this.resultTemplate = template;
+        this.resultCache.clear();
+    }
+
     @Inject(method = "setItemName",
             at = @At(value = "FIELD", target = "Lnet/minecraft/world/inventory/AnvilMenu;itemName:Ljava/lang/String;", opcode = Opcodes.PUTFIELD, shift = At.Shift.AFTER), cancellable = true)
     private void ssgl_updateItemName(String newName, CallbackInfo ci) {
         if (((SealedMenu) this).ssgl_isSealed()) {
             ci.cancel();
-            var slot = this.slots.get(AnvilMenu.RESULT_SLOT);
-            if (predicate == null || predicate.test(newName)) {
-                slot.set(Label.builder().item(TextMenu.RESULT_ITEM)
-                        .name(newName)
-                        .inputHint("Accept", new Input.LeftClick(false))
-                        .build()
-                        .asStack());
-            } else {
-                //noinspection AssignmentUsedAsCondition
-                slot.set((invalidToggleHack = !invalidToggleHack) ? INVALID1 : INVALID2);
+            // if the player's connection is backed up, this gets refreshed once it drains
+            if (Ticker.INSTANCE.updatesSuspended(this)) return;
+            var tick = Ticker.INSTANCE.currentTick();
+            if (!refreshPending && tick >= nextRefreshTick) {
+                ssgl_refreshResult();
+                nextRefreshTick = tick + SSGLConfig.anvilTextDebounceTicks();
+                return;
+            }
+
+            // the result for the previous text is stale, so isn't shown or taken until the refresh
+            this.slots.get(AnvilMenu.RESULT_SLOT).set(SSGLConfig.anvilTextDebounceTicks() > 1 ? VALIDATING : ItemStack.EMPTY);
+            // the client clears its result slot on every edit, so whatever ends up there needs sending again
+            this.setRemoteSlot(AnvilMenu.RESULT_SLOT, ItemStack.EMPTY);
+            Metrics.TEXT_UPDATES_COALESCED.increment();
+            if (!refreshPending) {
+                refreshPending = true;
+                Ticker.INSTANCE.addPendingText(this);
             }
         }
     }
+
+    @Override
+    public boolean ssgl_flushPendingText(long tick) {
+        if (!refreshPending) return true;
+        if (tick < nextRefreshTick) return false;
+        refreshPending = false;
+        // caught up separately
+        if (Ticker.INSTANCE.updatesSuspended(this)) return true;
+        ssgl_refreshResult();
+        nextRefreshTick = tick + SSGLConfig.anvilTextDebounceTicks();
+        return true;
+    }
+
+    @Override
+    public void ssgl_refreshResult() {
+        // no text sent by the client yet
+        if (itemName == null) return;
+        refreshPending = false;
+        var slot = this.slots.get(AnvilMenu.RESULT_SLOT);
+        if (predicate == null || predicate.test(itemName)) {
+            slot.set(resultCache.computeIfAbsent(itemName, this::renderResult));
+        } else {
+            slot.set(INVALID);
+        }
+        // the client clears its result slot whenever the text changes, so it needs sending again even if it's the same
+        this.setRemoteSlot(AnvilMenu.RESULT_SLOT, ItemStack.EMPTY);
+    }
+
+    @Unique
+    private ItemStack renderResult(String text) {
+        // not through the label cache, as most typed text is only seen once; resultCache covers repeats
+        var stack = (resultTemplate != null ? resultTemplate : DEFAULT_RESULT_TEMPLATE).copy();
+        stack.setHoverName(Component.literal(text).withStyle(Label.NORMAL));
+        return StackUtils.freeze(stack);
+    }
 }
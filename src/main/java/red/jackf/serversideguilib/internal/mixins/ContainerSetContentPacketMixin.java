@@ -0,0 +1,21 @@
+package red.jackf.serversideguilib.internal.mixins;
+
+import net.minecraft.network.protocol.game.ClientboundContainerSetContentPacket;
+import net.minecraft.world.item.ItemStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import red.jackf.serversideguilib.internal.utils.FrozenStack;
+
+/**
+ * Makes content packets' copies of frozen label stacks write with the original's pre-encoded bytes. They stay copies, as
+ * on a local connection the client gets the packet's stacks as-is.
+ */
+@Mixin(ClientboundContainerSetContentPacket.class)
+public abstract class ContainerSetContentPacketMixin {
+    @Redirect(method = "<init>(IILnet/minecraft/core/NonNullList;Lnet/minecraft/world/item/ItemStack;)V",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/item/ItemStack;copy()Lnet/minecraft/world/item/ItemStack;"))
+    private ItemStack ssgl_copyFrozenStacks(ItemStack stack) {
+        return FrozenStack.packetCopy(stack);
+    }
+}
@@ -0,0 +1,61 @@
+package red.jackf.serversideguilib.internal.mixins;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.item.ItemStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import red.jackf.serversideguilib.api.SSGLConfig;
+import red.jackf.serversideguilib.internal.utils.FrozenStack;
+import red.jackf.serversideguilib.internal.utils.Metrics;
+import red.jackf.serversideguilib.internal.utils.PacketSizes;
+
+/**
+ * Measures how much label stacks take up on the wire, and if enabled with {@link SSGLConfig#preEncodeLabels()}, writes
+ * their cached bytes instead of encoding them again.
+ */
+@Mixin(FriendlyByteBuf.class)
+public abstract class FriendlyByteBufMixin {
+    // set while encoding a stack for the cache, so the nested call does the actual encoding
+    @Unique
+    private static final ThreadLocal<Boolean> ENCODING = ThreadLocal.withInitial(() -> false);
+
+    @Inject(method = "writeItem", at = @At("HEAD"), cancellable = true)
+    private void ssgl_writeFrozenItem(ItemStack stack, CallbackInfoReturnable<FriendlyByteBuf> cir) {
+        if (ENCODING.get()) return;
+        // packets hold copies of frozen stacks, which share their source's bytes
+        var frozen = ((FrozenStack) (Object) stack).ssgl_encodingSource();
+        if (frozen == null) return;
+        var self = (FriendlyByteBuf) (Object) this;
+        var measured = !PacketSizes.isScratch(self);
+
+        var encoded = frozen.ssgl_getEncoded();
+        if (encoded != null && SSGLConfig.preEncodeLabels()) {
+            self.writeBytes(encoded);
+            if (measured) {
+                Metrics.LABEL_BYTES_ENCODED.add(encoded.length);
+                Metrics.LABEL_BYTES_PRE_ENCODED.add(encoded.length);
+            }
+            cir.setReturnValue(self);
+            return;
+        }
+
+        var start = self.writerIndex();
+        ENCODING.set(true);
+        try {
+            self.writeItem(stack);
+        } finally {
+            ENCODING.set(false);
+        }
+        var length = self.writerIndex() - start;
+        if (measured) Metrics.LABEL_BYTES_ENCODED.add(length);
+        if (SSGLConfig.preEncodeLabels()) {
+            var bytes = new byte[length];
+            self.getBytes(start, bytes);
+            frozen.ssgl_setEncoded(bytes);
+        }
+        cir.setReturnValue(self);
+    }
+}
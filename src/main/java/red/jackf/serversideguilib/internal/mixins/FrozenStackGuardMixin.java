@@ -0,0 +1,48 @@
+package red.jackf.serversideguilib.internal.mixins;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import red.jackf.serversideguilib.internal.utils.FrozenStack;
+
+/**
+ * Throws when a frozen label stack is modified. These sit on some of the most called methods in the game, so are only
+ * applied in a development environment; see {@link red.jackf.serversideguilib.internal.SSGLMixinPlugin}. Changes made
+ * directly to a frozen stack's tag can't be caught.
+ */
+@Mixin(ItemStack.class)
+public abstract class FrozenStackGuardMixin {
+    @Shadow
+    @Nullable
+    private CompoundTag tag;
+
+    @Inject(method = {"setCount", "setTag", "addTagElement", "removeTagKey", "resetHoverName", "hideTooltipPart", "enchant", "setDamageValue", "setRepairCost"},
+            at = @At("HEAD"))
+    private void ssgl_guardFrozen(CallbackInfo ci) {
+        ssgl_checkNotFrozen();
+    }
+
+    @Inject(method = "setHoverName", at = @At("HEAD"))
+    private void ssgl_guardFrozenName(CallbackInfoReturnable<ItemStack> cir) {
+        ssgl_checkNotFrozen();
+    }
+
+    // creates a tag if missing
+    @Inject(method = "getOrCreateTag", at = @At("HEAD"))
+    private void ssgl_guardFrozenTag(CallbackInfoReturnable<CompoundTag> cir) {
+        if (this.tag == null) ssgl_checkNotFrozen();
+    }
+
+    @Unique
+    private void ssgl_checkNotFrozen() {
+        if (((FrozenStack) (Object) this).ssgl_isFrozen())
+            throw new IllegalStateException("Tried to modify a frozen label stack; copy it first");
+    }
+}
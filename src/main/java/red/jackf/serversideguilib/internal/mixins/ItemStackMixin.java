@@ -0,0 +1,56 @@
+package red.jackf.serversideguilib.internal.mixins;
+
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import red.jackf.serversideguilib.internal.utils.FrozenStack;
+
+/**
+ * Lets label stacks be frozen, so they can be shared between slots and the client's copy without copying. Modifying a
+ * frozen stack is only caught in a development environment, by {@link FrozenStackGuardMixin}.
+ */
+@Mixin(ItemStack.class)
+public abstract class ItemStackMixin implements FrozenStack {
+    @Unique
+    private static final byte[] NOT_ENCODED = new byte[0];
+    /**
+     * If frozen, the stack's encoded bytes or {@link #NOT_ENCODED}; if a packet's copy of a frozen stack, that stack;
+     * otherwise null. One field, as every stack has it. Written on netty threads.
+     */
+    @Unique
+    private volatile @Nullable Object frozen = null;
+
+    @Override
+    public void ssgl_freeze() {
+        // a frozen copy may since have been changed, so doesn't keep its source's bytes
+        if (!(this.frozen instanceof byte[])) this.frozen = NOT_ENCODED;
+    }
+
+    @Override
+    public boolean ssgl_isFrozen() {
+        return frozen instanceof byte[];
+    }
+
+    @Override
+    public byte @Nullable [] ssgl_getEncoded() {
+        return frozen instanceof byte[] encoded && encoded != NOT_ENCODED ? encoded : null;
+    }
+
+    @Override
+    public void ssgl_setEncoded(byte[] encoded) {
+        if (frozen instanceof byte[]) this.frozen = encoded;
+    }
+
+    @Override
+    public void ssgl_copiedFrom(FrozenStack source) {
+        if (frozen == null) this.frozen = source;
+    }
+
+    @Override
+    public @Nullable FrozenStack ssgl_encodingSource() {
+        var frozen = this.frozen;
+        if (frozen instanceof byte[]) return this;
+        return frozen instanceof FrozenStack source ? source : null;
+    }
+}
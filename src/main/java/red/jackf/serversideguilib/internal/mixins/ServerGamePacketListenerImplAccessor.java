@@ -0,0 +1,12 @@
+package red.jackf.serversideguilib.internal.mixins;
+
+import net.minecraft.network.Connection;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ServerGamePacketListenerImpl.class)
+public interface ServerGamePacketListenerImplAccessor {
+    @Accessor("connection")
+    Connection ssgl_getConnection();
+}
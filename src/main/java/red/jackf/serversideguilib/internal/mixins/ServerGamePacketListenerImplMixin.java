@@ -0,0 +1,40 @@
+package red.jackf.serversideguilib.internal.mixins;
+
+import net.minecraft.network.protocol.game.ServerboundContainerClickPacket;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import red.jackf.serversideguilib.internal.utils.LatencyTracker;
+import red.jackf.serversideguilib.internal.utils.Metrics;
+import red.jackf.serversideguilib.internal.utils.SealedMenu;
+
+/**
+ * Used to cut down on packets sent in response to button clicks
+ */
+@Mixin(ServerGamePacketListenerImpl.class)
+public class ServerGamePacketListenerImplMixin {
+    /**
+     * If the client's state ID is out of date when it clicks (common with animated labels), vanilla resends the entire
+     * menu. When a button swallowed the click, the only things the client got wrong are what it predicted, which it sent
+     * along with the click and are now in the menu's remote copies; correcting just those is enough.
+     */
+    @Redirect(method = "handleContainerClick", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/inventory/AbstractContainerMenu;broadcastFullState()V"))
+    private void serversideguilib_targetedResync(AbstractContainerMenu menu) {
+        if (((SealedMenu) menu).ssgl_takeSwallowedClick()) {
+            menu.broadcastChanges();
+            Metrics.FULL_RESYNCS_AVOIDED.increment();
+        } else {
+            menu.broadcastFullState();
+        }
+    }
+
+    // the click's changes have been sent by now, one way or another
+    @Inject(method = "handleContainerClick", at = @At("RETURN"))
+    private void serversideguilib_clickFlushed(ServerboundContainerClickPacket packet, CallbackInfo ci) {
+        LatencyTracker.flushed();
+    }
+}
@@ -0,0 +1,36 @@
+package red.jackf.serversideguilib.internal.mixins;
+
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import red.jackf.serversideguilib.internal.utils.SealedMenu;
+import red.jackf.serversideguilib.internal.utils.TrackedSlot;
+
+/**
+ * Marks slots of SSGL menus dirty as they're written to, so only those get compared against the client's copy
+ */
+@Mixin(Slot.class)
+public class SlotMixin implements TrackedSlot {
+    @Shadow
+    public int index;
+    @Nullable
+    @Unique
+    private SealedMenu owner = null;
+
+    @Override
+    public void ssgl_setOwner(@Nullable SealedMenu owner) {
+        this.owner = owner;
+    }
+
+    // setByPlayer goes through here too
+    @Inject(method = "set(Lnet/minecraft/world/item/ItemStack;)V", at = @At("TAIL"))
+    private void ssgl_markWritten(ItemStack stack, CallbackInfo ci) {
+        if (this.owner != null) this.owner.ssgl_markDirty(this.index);
+    }
+}
@@ -10,6 +10,7 @@ import red.jackf.serversideguilib.api.buttons.Button;
 import red.jackf.serversideguilib.api.buttons.Input;
 import red.jackf.serversideguilib.api.buttons.SwitchButton;
 import red.jackf.serversideguilib.api.labels.Label;
+import red.jackf.serversideguilib.api.labels.LabelTemplate;
 import red.jackf.serversideguilib.api.labels.Labels;
 import red.jackf.serversideguilib.api.menus.CancellableCallback;
 import red.jackf.serversideguilib.api.menus.Menu;
@@ -22,6 +23,12 @@ import red.jackf.serversideguilib.internal.ServerSideGuiLib;
 import java.util.LinkedHashMap;
 
 public class TestMenu extends Menu {
+    private static final LabelTemplate UNBOUNDED_INT = inputTest(new ItemStack(Items.WRITABLE_BOOK, 1), "Integer input test", "No bounds");
+    private static final LabelTemplate BOUNDED_INT = inputTest(new ItemStack(Items.WRITABLE_BOOK, 2), "Integer input test", "Bounded: [0, 30]");
+    private static final LabelTemplate UNBOUNDED_DOUBLE = inputTest(new ItemStack(Items.FEATHER, 1), "Double input test", "Unbounded");
+    private static final LabelTemplate UNBOUNDED_DOUBLE_NAN = inputTest(new ItemStack(Items.FEATHER, 2), "Double input test", "Unbounded w/ NaN");
+    private static final LabelTemplate BOUNDED_DOUBLE = inputTest(new ItemStack(Items.FEATHER, 3), "Double input test", "Bounded: [-90, 270]");
+
     private int lastUnboundedInt = 0;
     private int lastBoundedInt = 0;
 
@@ -40,9 +47,10 @@ public class TestMenu extends Menu {
     @Override
     public void open() {
         var builder = MenuBuilder.make9x6(Component.literal("SSGL Test"));
+        builder.setOwner(this);
 
         builder.addButton(0, Button.leftClick(Label.playerHead(player).name("Pagination Test")
-                .inputHint("Open", new Input.LeftClick(false))
+                .inputHint("Open", Input.LEFT_CLICK)
                 .build(), () -> {
             Sounds.interact(player);
             var options = new LinkedHashMap<Label, Integer>();
@@ -61,12 +69,7 @@ public class TestMenu extends Menu {
         }));
 
         // Integer Tests
-        builder.addButton(1, Button.leftClick(Label.builder().item(new ItemStack(Items.WRITABLE_BOOK, 1))
-                .name("Integer input test")
-                .hint("No bounds")
-                .hint("Last: " + lastUnboundedInt)
-                .inputHint("Open", new Input.LeftClick(false))
-                .build(), () -> {
+        builder.addButton(1, Button.leftClick(UNBOUNDED_INT.render(lastUnboundedInt), () -> {
             Sounds.interact(player);
             Menus.integer(player, Component.literal("Unbounded Integer Test"), null, this.lastUnboundedInt, CancellableCallback.of(val -> {
                 Sounds.success(player);
@@ -77,12 +80,7 @@ public class TestMenu extends Menu {
                 open();
             }));
         }));
-        builder.addButton(2, Button.leftClick(Label.builder().item(new ItemStack(Items.WRITABLE_BOOK, 2))
-                .name("Integer input test")
-                .hint("Bounded: [0, 30]")
-                .hint("Last: " + lastBoundedInt)
-                .inputHint("Open", new Input.LeftClick(false))
-                .build(), () -> {
+        builder.addButton(2, Button.leftClick(BOUNDED_INT.render(lastBoundedInt), () -> {
             Sounds.interact(player);
             Menus.boundedInteger(player,
                     Component.literal("Bounded Integer Test [0, 30]"),
@@ -98,12 +96,7 @@ public class TestMenu extends Menu {
         }));
 
         // Double Tests
-        builder.addButton(4, Button.leftClick(Label.builder().item(new ItemStack(Items.FEATHER, 1))
-                .name("Double input test")
-                .hint("Unbounded")
-                .hint("Last: " + lastUnboundedDouble)
-                .inputHint("Open", new Input.LeftClick(false))
-                .build(), () -> {
+        builder.addButton(4, Button.leftClick(UNBOUNDED_DOUBLE.render(lastUnboundedDouble), () -> {
             Sounds.interact(player);
             Menus.ddouble(player,
                     Component.literal("Unbounded Double Test"),
@@ -118,12 +111,7 @@ public class TestMenu extends Menu {
                         open();
                     }));
         }));
-        builder.addButton(5, Button.leftClick(Label.builder().item(new ItemStack(Items.FEATHER, 2))
-                .name("Double input test")
-                .hint("Unbounded w/ NaN")
-                .hint("Last: " + lastUnboundedDoubleAllowNaN)
-                .inputHint("Open", new Input.LeftClick(false))
-                .build(), () -> {
+        builder.addButton(5, Button.leftClick(UNBOUNDED_DOUBLE_NAN.render(lastUnboundedDoubleAllowNaN), () -> {
             Sounds.interact(player);
             Menus.doubleAllowingNaN(player,
                     Component.literal("Double w/ NaN"),
@@ -138,12 +126,7 @@ public class TestMenu extends Menu {
                         open();
                     }));
         }));
-        builder.addButton(6, Button.leftClick(Label.builder().item(new ItemStack(Items.FEATHER, 3))
-                .name("Double input test")
-                .hint("Bounded: [-90, 270]")
-                .hint("Last: " + lastBoundedDouble)
-                .inputHint("Open", new Input.LeftClick(false))
-                .build(), () -> {
+        builder.addButton(6, Button.leftClick(BOUNDED_DOUBLE.render(lastBoundedDouble), () -> {
             Sounds.interact(player);
             Menus.boundedDouble(player,
                     Component.literal("Bounded Double Test"),
@@ -198,7 +181,7 @@ public class TestMenu extends Menu {
                 .item(Items.BLUE_CONCRETE).name("Animated Test 3").hint("Interval: 40").interval(40).build()));
         builder.addButton(16, new Button(Label.builder().item(Items.WHITE_CONCRETE).item(Items.LIGHT_GRAY_CONCRETE)
                 .name("Animated Test 4").hint("Interval: 2").interval(2)
-                .inputHint("Play Sound", new Input.Drop(false)).build(), input -> {
+                .inputHint("Play Sound", Input.DROP).build(), input -> {
             if (input instanceof Input.Drop drop && !drop.control()) {
                 Sounds.play(player, SoundEvents.ALLAY_AMBIENT_WITH_ITEM, 1f);
             }
@@ -206,14 +189,15 @@ public class TestMenu extends Menu {
 
         builder.addButton(17, Button.display(Label.builder().item(Items.DARK_OAK_SIGN).name("Empty Slot Button Test")
                 .hint("Press a hotbar button on the slot below.").build()));
+        // played like an instrument, so lets quick repeated presses through
         builder.addButton(26, new Button(Labels.EMPTY, input -> {
             if (input instanceof Input.Hotbar hotbar) {
                 Sounds.interact(player, 1f + hotbar.index() / 8f);
             }
-        }));
+        }).withoutRateLimit());
 
         builder.addButton(18, new Button(Label.builder().item(Items.SCULK_SENSOR).name("Offside Test")
-                .inputHint(new Input.DoubleLeftClick()).build(), input -> {
+                .inputHint(Input.DOUBLE_LEFT_CLICK).build(), input -> {
             if (input instanceof Input.DoubleLeftClick) {
                 Sounds.interact(player);
                 new OffsideTestMenu(player, () -> {
@@ -244,6 +228,15 @@ public class TestMenu extends Menu {
         builder.open(player);
     }
 
+    private static LabelTemplate inputTest(ItemStack stack, String name, String bounds) {
+        return LabelTemplate.builder().item(stack)
+                .name(name)
+                .hint(bounds)
+                .hint("Last: {0}")
+                .inputHint("Open", Input.LEFT_CLICK)
+                .build();
+    }
+
     private static class OffsideTestMenu extends ReturnableMenu {
         private int lastSelected = -1;
 
@@ -254,6 +247,7 @@ public class TestMenu extends Menu {
         @Override
         public void open() {
             var builder = MenuBuilder.make3x3(Component.literal("Click a dust or off-screen"));
+            builder.setOwner(this);
             builder.addButton(4, Button.close(this::complete));
             for (int i = 0; i < 9; i++) {
                 if (i != 4) {
@@ -271,7 +265,7 @@ public class TestMenu extends Menu {
                 open();
             }));
 
-            player.openMenu(builder.provider());
+            builder.open(player);
         }
     }
 
@@ -0,0 +1,27 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Player;
+import org.jetbrains.annotations.Nullable;
+import red.jackf.serversideguilib.internal.mixins.ConnectionAccessor;
+import red.jackf.serversideguilib.internal.mixins.ServerGamePacketListenerImplAccessor;
+
+/**
+ * Checks whether a player's connection can take more packets, so cosmetic updates can be held back for players that
+ * aren't keeping up instead of piling up in memory.
+ */
+public class Backpressure {
+    private Backpressure() {
+    }
+
+    /**
+     * @param player Player to check
+     * @return Whether the player's outgoing buffer is full; false for anything that isn't a connected server player.
+     */
+    public static boolean isSaturated(@Nullable Player player) {
+        if (!(player instanceof ServerPlayer serverPlayer) || serverPlayer.connection == null) return false;
+        var connection = ((ServerGamePacketListenerImplAccessor) serverPlayer.connection).ssgl_getConnection();
+        var channel = ((ConnectionAccessor) connection).ssgl_getChannel();
+        return channel != null && !channel.isWritable();
+    }
+}
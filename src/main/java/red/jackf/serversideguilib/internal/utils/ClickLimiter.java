@@ -0,0 +1,59 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import net.minecraft.world.entity.player.Player;
+import red.jackf.serversideguilib.api.SSGLConfig;
+import red.jackf.serversideguilib.api.buttons.Input;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Limits how many button clicks are handled per player per tick, as most handlers rebuild the whole menu. Identical
+ * clicks within a tick are handled once, and clicks past {@link SSGLConfig#maxClicksPerTick()} are dropped until the next
+ * tick. Only used on the server thread.
+ */
+public class ClickLimiter {
+    private static final Map<Player, State> STATES = new WeakHashMap<>();
+
+    private ClickLimiter() {
+    }
+
+    /**
+     * Records a click, and checks whether it should be handled.
+     *
+     * @return Whether to run the button's handler
+     */
+    public static boolean allow(Player player, int slotId, Input input) {
+        var max = SSGLConfig.maxClicksPerTick();
+        if (max == 0) return true;
+        var state = STATES.computeIfAbsent(player, p -> new State());
+        var tick = Ticker.INSTANCE.currentTick();
+        if (state.tick != tick) {
+            state.tick = tick;
+            state.handled = 0;
+        }
+
+        // slot IDs go as low as -999, so offset them to keep the key positive
+        var click = (slotId + 1000L) * Input.VALUES.size() + input.id();
+        for (int i = 0; i < state.handled; i++)
+            if (state.clicks[i] == click) {
+                Metrics.CLICKS_COLLAPSED.increment();
+                return false;
+            }
+        if (state.handled >= max) {
+            Metrics.CLICKS_DROPPED.increment();
+            return false;
+        }
+
+        if (state.clicks.length < max) state.clicks = Arrays.copyOf(state.clicks, max);
+        state.clicks[state.handled++] = click;
+        return true;
+    }
+
+    private static class State {
+        private long tick = -1;
+        private int handled = 0;
+        private long[] clicks = new long[0];
+    }
+}
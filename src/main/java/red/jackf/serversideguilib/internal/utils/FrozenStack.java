@@ -0,0 +1,44 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented on {@link net.minecraft.world.item.ItemStack} by {@link red.jackf.serversideguilib.internal.mixins.ItemStackMixin}.
+ */
+public interface FrozenStack {
+    void ssgl_freeze();
+
+    boolean ssgl_isFrozen();
+
+    /**
+     * @return This stack's bytes as written by {@link net.minecraft.network.FriendlyByteBuf#writeItem(net.minecraft.world.item.ItemStack)},
+     * if frozen and pre-encoded
+     */
+    byte @Nullable [] ssgl_getEncoded();
+
+    void ssgl_setEncoded(byte[] encoded);
+
+    /**
+     * Marks this unfrozen stack as a packet's copy of a frozen stack, so it is written from and fills in that stack's
+     * encoded bytes. Stays unfrozen, so the receiving end of a local connection can still modify it.
+     */
+    void ssgl_copiedFrom(FrozenStack source);
+
+    /**
+     * @return The frozen stack whose encoded bytes this stack is written with: itself if frozen, the stack it was
+     * copied from if a packet's copy, otherwise null
+     */
+    @Nullable FrozenStack ssgl_encodingSource();
+
+    /**
+     * Copy a stack for a packet; copies of frozen stacks keep using their encoded bytes.
+     */
+    static ItemStack packetCopy(ItemStack stack) {
+        var copy = stack.copy();
+        var source = (FrozenStack) (Object) stack;
+        // copies of empty stacks are the shared ItemStack.EMPTY
+        if (source.ssgl_isFrozen() && !copy.isEmpty()) ((FrozenStack) (Object) copy).ssgl_copiedFrom(source);
+        return copy;
+    }
+}
@@ -0,0 +1,172 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import com.mojang.authlib.GameProfile;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.PlayerHeadItem;
+import org.jetbrains.annotations.Nullable;
+import red.jackf.serversideguilib.api.SSGLConfig;
+import red.jackf.serversideguilib.api.utils.StackUtils;
+import red.jackf.serversideguilib.internal.ServerSideGuiLib;
+
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves player head profiles in the background, so heads can be sent to clients with their textures instead of each
+ * client looking them up. Heads shown before their profile is known are patched once it resolves.
+ */
+public class HeadProfiles {
+    private static final long PROFILE_TTL_NANOS = TimeUnit.MINUTES.toNanos(30);
+    // retried sooner, in case of a lookup failure rather than the player not existing
+    private static final long MISSING_TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int MAX_QUEUED = 64;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_QUEUED), runnable -> {
+        var thread = new Thread(runnable, "SSGL Head Resolver-" + THREAD_COUNT.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private static final Map<String, Entry> PROFILES = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<GameProfile>> IN_FLIGHT = new ConcurrentHashMap<>();
+    /**
+     * Heads with their profile filled in, by the original head; only used on the server thread. Expire along with the
+     * profile, as the original heads can be kept alive by the label cache.
+     */
+    private static final Map<ItemStack, Patched> PATCHED = new WeakHashMap<>();
+
+    private HeadProfiles() {
+    }
+
+    /**
+     * @return A resolved profile for a player name, or null if not resolved yet or expired.
+     */
+    @Nullable
+    public static GameProfile cached(String name) {
+        var entry = PROFILES.get(key(name));
+        return entry != null && !entry.expired(System.nanoTime()) ? entry.profile : null;
+    }
+
+    /**
+     * @return Whether a stack is a player head with only a name, that a profile could be filled in for.
+     */
+    public static boolean needsProfile(ItemStack stack) {
+        var tag = stack.getTag();
+        return stack.is(Items.PLAYER_HEAD) && tag != null && tag.contains(PlayerHeadItem.TAG_SKULL_OWNER, Tag.TAG_STRING);
+    }
+
+    /**
+     * Looks up the profile for a head shown in a menu slot, and replaces the head with one including the profile once it
+     * resolves. Skipped if the menu has since closed or the slot has changed. If too many lookups are already queued, the
+     * head is left for the client to resolve.
+     *
+     * @param stack Head currently in the slot, from {@link #needsProfile(ItemStack)}
+     */
+    public static void patchWhenResolved(MinecraftServer server, AbstractContainerMenu menu, int slotId, ItemStack stack) {
+        var name = stack.getOrCreateTag().getString(PlayerHeadItem.TAG_SKULL_OWNER);
+        var request = request(server, name);
+        if (request == null) return;
+        var menuRef = new WeakReference<>(menu);
+        request.thenAcceptAsync(profile -> {
+            var target = menuRef.get();
+            if (profile == null || target == null || !Ticker.INSTANCE.isTracked(target)) return;
+            var slot = target.slots.get(slotId);
+            if (slot.getItem() != stack) return;
+            var now = System.nanoTime();
+            var patched = PATCHED.get(stack);
+            if (patched == null || patched.expired(now)) {
+                patched = new Patched(withProfile(stack, profile), now + PROFILE_TTL_NANOS);
+                PATCHED.put(stack, patched);
+            }
+            slot.set(patched.stack);
+        }, server);
+    }
+
+    /**
+     * @return A frozen copy of a head with a full profile as its owner
+     */
+    public static ItemStack withProfile(ItemStack head, GameProfile profile) {
+        var stack = head.copy();
+        stack.getOrCreateTag().put(PlayerHeadItem.TAG_SKULL_OWNER, NbtUtils.writeGameProfile(new CompoundTag(), profile));
+        return StackUtils.freeze(stack);
+    }
+
+    /**
+     * @return Future for the name's profile, or null if the queue is full
+     */
+    @Nullable
+    private static CompletableFuture<GameProfile> request(MinecraftServer server, String name) {
+        var key = key(name);
+        var now = System.nanoTime();
+        var entry = PROFILES.get(key);
+        if (entry != null && !entry.expired(now)) return CompletableFuture.completedFuture(entry.profile);
+
+        return IN_FLIGHT.computeIfAbsent(key, k -> {
+            var future = new CompletableFuture<GameProfile>();
+            try {
+                EXECUTOR.execute(() -> {
+                    GameProfile profile = null;
+                    try {
+                        profile = SSGLConfig.headProfileResolver().resolve(server, name);
+                    } catch (Exception ex) {
+                        ServerSideGuiLib.LOGGER.warn("Could not resolve head profile for " + name, ex);
+                    }
+                    var ttl = profile != null ? PROFILE_TTL_NANOS : MISSING_TTL_NANOS;
+                    PROFILES.put(k, new Entry(profile, System.nanoTime() + ttl));
+                    Metrics.HEAD_PROFILES_RESOLVED.increment();
+                    IN_FLIGHT.remove(k);
+                    future.complete(profile);
+                });
+            } catch (RejectedExecutionException ex) {
+                Metrics.HEAD_PROFILES_REJECTED.increment();
+                return null;
+            }
+            return future;
+        });
+    }
+
+    /**
+     * Drop expired profiles and the heads patched with them. Called on the server thread.
+     */
+    public static void purgeExpired() {
+        var now = System.nanoTime();
+        PROFILES.values().removeIf(entry -> entry.expired(now));
+        PATCHED.values().removeIf(patched -> patched.expired(now));
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(@Nullable GameProfile profile, long expiresAt) {
+        private boolean expired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+
+    private record Patched(ItemStack stack, long expiresAt) {
+        private boolean expired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+import red.jackf.serversideguilib.api.SSGLConfig;
+import red.jackf.serversideguilib.api.labels.Label;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Built labels by their contents, so menus rebuilt with the same labels share one set of stacks instead of rendering
+ * them again. Bounded by {@link SSGLConfig#labelCacheSize()}, dropping the least recently used. Labels can be built from
+ * computed tickers, so access is synchronized.
+ */
+public class LabelCache {
+    private static final Map<Key, Label> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    private LabelCache() {
+    }
+
+    /**
+     * Get a built label with the given contents, building it if not cached.
+     *
+     * @param key    Everything that goes into building the label
+     * @param render Builds the label; shouldn't modify anything in the key
+     */
+    public static Label get(Key key, Supplier<Label> render) {
+        if (SSGLConfig.labelCacheSize() == 0) {
+            synchronized (CACHE) {
+                if (!CACHE.isEmpty()) CACHE.clear();
+            }
+            return render.get();
+        }
+
+        synchronized (CACHE) {
+            var cached = CACHE.get(key);
+            if (cached != null) {
+                Metrics.LABEL_CACHE_HITS.increment();
+                return cached;
+            }
+        }
+
+        Metrics.LABEL_CACHE_MISSES.increment();
+        var label = render.get();
+        synchronized (CACHE) {
+            // the caller's key can still change after this, i.e. a mutable name being reused
+            var raced = CACHE.putIfAbsent(key.snapshot(), label);
+            // the size can be lowered at any time, so this may be more than one
+            var maxSize = SSGLConfig.labelCacheSize();
+            for (var iterator = CACHE.values().iterator(); CACHE.size() > maxSize && iterator.hasNext(); ) {
+                iterator.next();
+                iterator.remove();
+                Metrics.LABEL_CACHE_EVICTIONS.increment();
+            }
+            return raced != null ? raced : label;
+        }
+    }
+
+    /**
+     * @param interval Only compared for labels with more than one stack
+     */
+    public record Key(List<StackKey> stacks, @Nullable Component name, List<Component> hints, boolean keepLore, int interval) {
+        public static Key of(List<ItemStack> stacks, @Nullable Component name, List<Component> hints, boolean keepLore, int interval) {
+            return new Key(stacks.stream().map(StackKey::of).toList(), name, List.copyOf(hints), keepLore, stacks.size() > 1 ? interval : 0);
+        }
+
+        /**
+         * @return A copy of this key that shares nothing mutable with the builder it came from
+         */
+        private Key snapshot() {
+            return new Key(stacks.stream().map(StackKey::snapshot).toList(),
+                    name != null ? LabelCache.snapshot(name) : null,
+                    hints.stream().map(LabelCache::snapshot).toList(),
+                    keepLore, interval);
+        }
+    }
+
+    public record StackKey(Item item, int count, @Nullable CompoundTag tag) {
+        private static StackKey of(ItemStack stack) {
+            return new StackKey(stack.getItem(), stack.getCount(), stack.getTag());
+        }
+
+        private StackKey snapshot() {
+            return new StackKey(item, count, tag != null ? tag.copy() : null);
+        }
+    }
+
+    /**
+     * @return A copy of a component sharing nothing mutable with it; <code>Component.copy()</code> shares siblings,
+     * which can be mutable too
+     */
+    static Component snapshot(Component component) {
+        var copy = component.plainCopy().setStyle(component.getStyle());
+        for (var sibling : component.getSiblings()) copy.append(snapshot(sibling));
+        return copy;
+    }
+}
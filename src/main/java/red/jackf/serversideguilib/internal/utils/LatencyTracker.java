@@ -0,0 +1,247 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import org.jetbrains.annotations.Nullable;
+import red.jackf.serversideguilib.api.SSGLConfig;
+import red.jackf.serversideguilib.api.menus.Menu;
+import red.jackf.serversideguilib.api.menus.MenuBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times how long button clicks take to turn into packets for the player, split into phases and kept per {@link Menu}
+ * subclass. Viewable in game with <code>/ssgl latency</code>.
+ * <p>
+ * Clicks are handled on the server thread, so only a click on that thread is timed; labels built elsewhere, i.e. by
+ * computed tickers, aren't counted.</p>
+ */
+public class LatencyTracker {
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final Map<Class<?>, Histogram[]> HISTOGRAMS = new LinkedHashMap<>();
+
+    // the click currently being handled
+    @Nullable
+    private static Thread clickThread = null;
+    @Nullable
+    private static Class<?> clickOwner = null;
+    private static long clickArrived = 0;
+    private static long handlerStarted = 0;
+    private static long handlerFinished = 0;
+    private static long rebuildNanos = 0;
+    private static long sealNanos = 0;
+    private static int nestedDepth = 0;
+
+    private LatencyTracker() {
+    }
+
+    public enum Phase {
+        /**
+         * From the click arriving to its button's handler starting.
+         */
+        DISPATCH,
+        /**
+         * Running the handler, excluding the rebuild and seal phases inside it.
+         */
+        HANDLER,
+        /**
+         * Building labels during the handler.
+         */
+        REBUILD,
+        /**
+         * Opening or re-rendering a menu during the handler.
+         */
+        SEAL,
+        /**
+         * From the handler finishing to the resulting changes being sent.
+         */
+        FLUSH,
+        /**
+         * From the click arriving to the resulting changes being sent.
+         */
+        TOTAL;
+
+        private final String id = name().toLowerCase();
+    }
+
+    /**
+     * Find the {@link Menu} subclass building a menu, to key its timings by.
+     *
+     * @return The nearest Menu subclass on the stack, or null if tracking is disabled or there isn't one
+     */
+    @Nullable
+    public static Class<?> callingMenu() {
+        if (!SSGLConfig.latencyTracking()) return null;
+        return STACK_WALKER.walk(frames -> frames.<Class<?>>map(StackWalker.StackFrame::getDeclaringClass)
+                .filter(Menu.class::isAssignableFrom)
+                .findFirst()
+                .orElse(null));
+    }
+
+    /**
+     * Called right before a button's handler runs.
+     *
+     * @param owner   Menu subclass of the clicked menu, from {@link #callingMenu()}
+     * @param arrived {@link System#nanoTime()} when the click arrived
+     */
+    public static void handlerStarting(@Nullable Class<?> owner, long arrived) {
+        if (!SSGLConfig.latencyTracking()) return;
+        clickThread = Thread.currentThread();
+        clickOwner = owner;
+        clickArrived = arrived;
+        handlerStarted = System.nanoTime();
+        handlerFinished = 0;
+        rebuildNanos = 0;
+        sealNanos = 0;
+        nestedDepth = 0;
+        record(Phase.DISPATCH, handlerStarted - arrived);
+    }
+
+    public static void handlerFinished() {
+        if (Thread.currentThread() != clickThread || handlerFinished != 0) return;
+        handlerFinished = System.nanoTime();
+        record(Phase.HANDLER, handlerFinished - handlerStarted - rebuildNanos - sealNanos);
+        // only counted for clicks that did them, so quick clicks don't hide slow rebuilds
+        if (rebuildNanos > 0) record(Phase.REBUILD, rebuildNanos);
+        if (sealNanos > 0) record(Phase.SEAL, sealNanos);
+    }
+
+    /**
+     * Start timing a {@link Phase#REBUILD} or {@link Phase#SEAL} step. Must be paired with {@link #end(Phase, long)},
+     * i.e. in a finally block.
+     *
+     * @return Start time to pass to {@link #end(Phase, long)}
+     */
+    public static long begin() {
+        if (!inHandler()) return NOT_TIMED;
+        // only the outermost step is timed, so nothing is counted twice
+        return nestedDepth++ == 0 ? System.nanoTime() : NOT_TIMED;
+    }
+
+    public static void end(Phase phase, long start) {
+        if (!inHandler()) return;
+        nestedDepth--;
+        if (start == NOT_TIMED) return;
+        var elapsed = System.nanoTime() - start;
+        if (phase == Phase.REBUILD) rebuildNanos += elapsed;
+        else sealNanos += elapsed;
+    }
+
+    /**
+     * Called once a click's changes have been sent.
+     */
+    public static void flushed() {
+        if (Thread.currentThread() != clickThread) return;
+        clickThread = null;
+        if (handlerFinished == 0) return;
+        var now = System.nanoTime();
+        record(Phase.FLUSH, now - handlerFinished);
+        record(Phase.TOTAL, now - clickArrived);
+    }
+
+    private static boolean inHandler() {
+        return Thread.currentThread() == clickThread && handlerFinished == 0;
+    }
+
+    private static void record(Phase phase, long nanos) {
+        var owner = clickOwner != null ? clickOwner : MenuBuilder.class;
+        HISTOGRAMS.computeIfAbsent(owner, key -> {
+            var histograms = new Histogram[Phase.values().length];
+            Arrays.setAll(histograms, i -> new Histogram());
+            return histograms;
+        })[phase.ordinal()].record(nanos);
+    }
+
+    public static void reset() {
+        HISTOGRAMS.clear();
+    }
+
+    /**
+     * @return Lines describing each menu's timings, with a header per menu followed by each phase with recorded clicks.
+     */
+    public static List<String> summary() {
+        var lines = new ArrayList<String>();
+        HISTOGRAMS.forEach((owner, histograms) -> {
+            lines.add(owner.getSimpleName().isEmpty() ? owner.getName() : owner.getSimpleName());
+            for (var phase : Phase.values()) {
+                var histogram = histograms[phase.ordinal()];
+                if (histogram.count() > 0) lines.add("  " + phase.id + ": " + histogram.describe());
+            }
+        });
+        return lines;
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) return nanos + "ns";
+        if (nanos < 1_000_000) return "%.1fµs".formatted(nanos / 1_000d);
+        return "%.2fms".formatted(nanos / 1_000_000d);
+    }
+
+    /**
+     * Log-linear histogram of durations in nanoseconds, in the style of HdrHistogram: each power of two is split into
+     * {@value #SUB_BUCKETS} linear buckets, so any recorded value is reported to within about 3%.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        // durations past about 18 minutes all land in the last bucket
+        private static final int MAX_SHIFT = 35;
+        private final long[] counts = new long[(MAX_SHIFT + 2) * SUB_BUCKETS];
+        private long count = 0;
+        private long sum = 0;
+        private long max = 0;
+
+        private static int indexOf(long value) {
+            if (value < 2 * SUB_BUCKETS) return (int) Math.max(value, 0);
+            var shift = Math.min(63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS, MAX_SHIFT);
+            var mantissa = Math.min(value >>> shift, 2 * SUB_BUCKETS - 1);
+            return shift * SUB_BUCKETS + (int) mantissa;
+        }
+
+        private static long highestIn(int index) {
+            if (index < 2 * SUB_BUCKETS) return index;
+            var shift = index / SUB_BUCKETS - 1;
+            var mantissa = index - shift * SUB_BUCKETS;
+            return ((mantissa + 1L) << shift) - 1;
+        }
+
+        void record(long nanos) {
+            nanos = Math.max(nanos, 0);
+            counts[indexOf(nanos)]++;
+            count++;
+            sum += nanos;
+            max = Math.max(max, nanos);
+        }
+
+        long count() {
+            return count;
+        }
+
+        /**
+         * @param percentile Percentile to get, from 0 to 100
+         * @return Highest duration within the given percentile of recorded values
+         */
+        long percentile(double percentile) {
+            if (count == 0) return 0;
+            var target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) return Math.min(highestIn(i), max);
+            }
+            return max;
+        }
+
+        String describe() {
+            return "n=%d mean=%s p50=%s p90=%s p99=%s max=%s".formatted(count,
+                    formatNanos(sum / count),
+                    formatNanos(percentile(50)),
+                    formatNanos(percentile(90)),
+                    formatNanos(percentile(99)),
+                    formatNanos(max));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import net.minecraft.nbt.StringTag;
+import net.minecraft.network.chat.Component;
+import red.jackf.serversideguilib.api.buttons.Input;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoizes the parts of label lore that are the same across labels: input hints, and hints serialized to lore JSON.
+ * Cached values are shared, so shouldn't be modified.
+ */
+public class LoreCache {
+    private static final int MAX_SERIALIZED = 1024;
+
+    // inputs are a small fixed set of values, so these are never evicted
+    private static final Map<Input, Component> HINTS = new ConcurrentHashMap<>();
+    private static final LruCache<Component, StringTag> SERIALIZED = new LruCache<>(MAX_SERIALIZED);
+
+    private LoreCache() {
+    }
+
+    /**
+     * @return A shared copy of {@link Input#getHint()}
+     */
+    public static Component hint(Input input) {
+        return HINTS.computeIfAbsent(input, Input::getHint);
+    }
+
+    /**
+     * @return A component serialized as a line of lore, by content
+     */
+    public static StringTag serialize(Component component) {
+        synchronized (SERIALIZED) {
+            var cached = SERIALIZED.get(component);
+            if (cached != null) return cached;
+        }
+        var tag = StringTag.valueOf(Component.Serializer.toJson(component));
+        synchronized (SERIALIZED) {
+            // the caller's component could still be changed after this
+            SERIALIZED.put(LabelCache.snapshot(component), tag);
+        }
+        return tag;
+    }
+}
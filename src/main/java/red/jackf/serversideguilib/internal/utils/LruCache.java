@@ -0,0 +1,21 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map that drops its least recently accessed entry once it holds more than a set number. Not thread safe.
+ */
+public class LruCache<K, V> extends LinkedHashMap<K, V> {
+    private final int maxSize;
+
+    public LruCache(int maxSize) {
+        super(16, 0.75f, true);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxSize;
+    }
+}
@@ -0,0 +1,118 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the library's internals, viewable in game with <code>/ssgl stats</code>.
+ */
+public class Metrics {
+    private static final Map<String, Counter> COUNTERS = new LinkedHashMap<>();
+
+    public static final Counter TICKER_RUNS_DEFERRED = counter("ticker.runs_deferred");
+    public static final Counter ANIMATION_FRAMES_SKIPPED = counter("animation.frames_skipped");
+    public static final Counter UPDATES_SUSPENDED = counter("backpressure.updates_suspended");
+    public static final Counter CATCH_UP_SNAPSHOTS = counter("backpressure.catch_up_snapshots");
+    public static final Counter FULL_RESYNCS_AVOIDED = counter("click.full_resyncs_avoided");
+    public static final Counter CLICKS_COLLAPSED = counter("click.collapsed");
+    public static final Counter CLICKS_DROPPED = counter("click.dropped");
+    public static final Counter ASYNC_CLICKS_IGNORED = counter("click.async_pending_ignored");
+    public static final Counter FLUSHED_AS_SLOTS = counter("flush.as_slot_packets");
+    public static final Counter FLUSHED_AS_CONTENT = counter("flush.as_content_packet");
+    public static final Counter TEXT_UPDATES_COALESCED = counter("anvil.text_updates_coalesced");
+    public static final Counter LABEL_CACHE_HITS = counter("label_cache.hits");
+    public static final Counter LABEL_CACHE_MISSES = counter("label_cache.misses");
+    public static final Counter LABEL_CACHE_EVICTIONS = counter("label_cache.evictions");
+    public static final Counter HEAD_PROFILES_RESOLVED = counter("heads.profiles_resolved");
+    public static final Counter HEAD_PROFILES_REJECTED = counter("heads.profiles_rejected");
+    public static final Rate LABEL_BYTES_ENCODED = rate("encoding.label_bytes");
+    public static final Rate LABEL_BYTES_PRE_ENCODED = rate("encoding.label_bytes_pre_encoded");
+
+    private Metrics() {
+    }
+
+    private static Counter counter(String name) {
+        var counter = new Counter();
+        COUNTERS.put(name, counter);
+        return counter;
+    }
+
+    private static Rate rate(String name) {
+        var rate = new Rate();
+        COUNTERS.put(name, rate);
+        return rate;
+    }
+
+    /**
+     * Update each rate's per-second value from the change since the last call.
+     */
+    public static void sampleRates() {
+        var now = System.nanoTime();
+        for (var counter : COUNTERS.values())
+            if (counter instanceof Rate rate) rate.sample(now);
+    }
+
+    /**
+     * @return All counters, by name in registration order.
+     */
+    public static Map<String, Counter> all() {
+        return Collections.unmodifiableMap(COUNTERS);
+    }
+
+    public static class Counter {
+        private final LongAdder value = new LongAdder();
+
+        private Counter() {
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        /**
+         * @return The counter's value for display
+         */
+        public String describe() {
+            return String.valueOf(get());
+        }
+    }
+
+    /**
+     * A counter that also tracks how fast it's increasing, as of the last {@link #sampleRates()}.
+     */
+    public static class Rate extends Counter {
+        private long lastValue = 0;
+        private long lastSampleNanos = 0;
+        private volatile double perSecond = 0;
+
+        private Rate() {
+        }
+
+        private void sample(long now) {
+            var value = get();
+            if (lastSampleNanos != 0 && now > lastSampleNanos)
+                perSecond = (value - lastValue) * 1_000_000_000d / (now - lastSampleNanos);
+            lastValue = value;
+            lastSampleNanos = now;
+        }
+
+        public double perSecond() {
+            return perSecond;
+        }
+
+        @Override
+        public String describe() {
+            return "%d (%.0f/s)".formatted(get(), perSecond);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Estimates how large container packets will be on the wire, to choose the cheaper way of sending a set of changes.
+ * Only used on the server thread.
+ */
+public class PacketSizes {
+    /**
+     * Frame length, packet ID, container ID, state ID and slot index of a slot update, excluding the stack.
+     */
+    public static final int SLOT_PACKET_OVERHEAD = 7;
+    /**
+     * Frame length, packet ID, container ID, state ID and list length of a content update, excluding the stacks.
+     */
+    public static final int CONTENT_PACKET_OVERHEAD = 7;
+
+    // not counted towards encoding metrics
+    private static final FriendlyByteBuf SCRATCH = new FriendlyByteBuf(Unpooled.buffer());
+    // keyed by identity; label stacks are reused every frame so this is hit far more than not
+    private static final Map<ItemStack, Size> SIZES = new WeakHashMap<>();
+
+    private PacketSizes() {
+    }
+
+    /**
+     * @return Encoded size of a stack in bytes.
+     */
+    public static int stack(ItemStack stack) {
+        if (stack.isEmpty()) return 1;
+        var encoded = ((FrozenStack) (Object) stack).ssgl_getEncoded();
+        if (encoded != null) return encoded.length;
+        var cached = SIZES.get(stack);
+        // an estimate, so in-place tag edits going unnoticed until the next count or tag change is fine
+        if (cached != null && cached.count == stack.getCount() && cached.tag == stack.getTag()) return cached.bytes;
+        SCRATCH.clear();
+        SCRATCH.writeItem(stack);
+        var bytes = SCRATCH.readableBytes();
+        SIZES.put(stack, new Size(stack.getCount(), stack.getTag(), bytes));
+        return bytes;
+    }
+
+    /**
+     * @return Whether a buffer is only used for estimating sizes, not sent
+     */
+    public static boolean isScratch(FriendlyByteBuf buf) {
+        return buf == SCRATCH;
+    }
+
+    private record Size(int count, @Nullable CompoundTag tag, int bytes) {
+    }
+}
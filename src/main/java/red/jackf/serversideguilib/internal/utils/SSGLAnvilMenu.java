@@ -1,7 +1,27 @@
 package red.jackf.serversideguilib.internal.utils;
 
+import net.minecraft.world.item.ItemStack;
+
 import java.util.function.Predicate;
 
 public interface SSGLAnvilMenu {
     void ssgl_setTextPredicate(Predicate<String> predicate);
+
+    /**
+     * Set the stack that valid results are rendered from, named after the text. Should not be modified afterwards.
+     */
+    void ssgl_setResultTemplate(ItemStack template);
+
+    /**
+     * Update the result slot from the current text, including text still waiting out the debounce.
+     */
+    void ssgl_refreshResult();
+
+    /**
+     * Validate text that was held back by the debounce, if it's due.
+     *
+     * @param tick Current tick, from {@link Ticker#currentTick()}
+     * @return Whether nothing is pending anymore
+     */
+    boolean ssgl_flushPendingText(long tick);
 }
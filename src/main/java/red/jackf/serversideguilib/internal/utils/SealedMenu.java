@@ -1,16 +1,55 @@
 package red.jackf.serversideguilib.internal.utils;
 
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.MenuType;
+import org.jetbrains.annotations.Nullable;
 import red.jackf.serversideguilib.api.buttons.Button;
 import red.jackf.serversideguilib.api.menus.MenuBuilder;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Used to add functionality to a server-side menu
  */
 public interface SealedMenu {
-    void ssgl_seal(Map<Integer, Button> inputs, List<MenuBuilder.MenuTicker> tickers);
+    /**
+     * Sets up this menu's buttons and tickers. If the menu has already been sealed, it's re-rendered with the new ones.
+     *
+     * @param buttons       Buttons by slot ID, with null for empty slots. Held by the menu, so shouldn't be modified after.
+     * @param outsideButton Button for clicks outside the menu
+     * @param owner         Menu subclass that built this, for keying click latency
+     */
+    void ssgl_seal(Player player, Component title, Button[] buttons, @Nullable Button outsideButton, List<MenuBuilder.MenuTicker> tickers, List<MenuBuilder.ComputedTicker> computedTickers, @Nullable Class<?> owner);
 
     boolean ssgl_isSealed();
+
+    /**
+     * Marks a slot as needing to be compared against the client's copy on the next broadcast. Writes through
+     * {@link net.minecraft.world.inventory.Slot#set} do this already; call it after writing to a slot's container directly.
+     */
+    void ssgl_markDirty(int slotId);
+
+    /**
+     * Marks every slot as needing to be compared on the next broadcast, for when it's unknown which slots were written.
+     */
+    void ssgl_markAllDirty();
+
+    /**
+     * Whether the last click on this menu was swallowed by a button. Resets the flag.
+     */
+    boolean ssgl_takeSwallowedClick();
+
+    /**
+     * Whether this is an SSGL menu that can be re-sealed in place for a menu of the given type and title.
+     */
+    boolean ssgl_canRerender(MenuType<?> type, Component title);
+
+    /**
+     * Finish an async button's work, putting back the label of whichever button is in that slot now.
+     *
+     * @param slotId Slot the button was clicked in
+     * @return Whether this is still an SSGL menu, and the completion should run
+     */
+    boolean ssgl_finishAsync(int slotId);
 }
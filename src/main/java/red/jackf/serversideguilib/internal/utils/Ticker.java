@@ -1,62 +1,487 @@
 package red.jackf.serversideguilib.internal.utils;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.minecraft.world.inventory.Slot;
 import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+import red.jackf.serversideguilib.api.SSGLConfig;
 import red.jackf.serversideguilib.api.labels.Label;
 import red.jackf.serversideguilib.api.menus.MenuBuilder;
+import red.jackf.serversideguilib.internal.ServerSideGuiLib;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 public class Ticker {
     public static final Ticker INSTANCE = new Ticker();
 
-    private final List<AnimatedLabelEntry> animatedLabels = new ArrayList<>();
+    /**
+     * Pool that {@link MenuBuilder.ComputedTicker}s are run on, leaving a core for the server thread.
+     */
+    private static final ForkJoinPool COMPUTE_POOL = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), pool -> {
+        var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("SSGL Ticker Worker-" + thread.getPoolIndex());
+        return thread;
+    }, null, false);
 
-    private final List<MenuTickerEntry> menuTickers = new ArrayList<>();
+    /**
+     * How often tracked menus are checked against their owner's open menu, in ticks.
+     */
+    private static final int REAP_INTERVAL = 200;
+
+    /**
+     * Animated labels, grouped by interval, frame count and phase so labels that change together are advanced from one
+     * shared frame calculation. Buckets are ordered by the tick their next frame is due; most labels only change every
+     * 20+ ticks, so we only look at the head of the queue instead of walking every label each tick.
+     */
+    private final PriorityQueue<AnimationBucket> animationQueue = new PriorityQueue<>(Comparator.comparingLong(bucket -> bucket.nextFrameTick));
+
+    private final Map<AnimationBucket.Key, AnimationBucket> animationBuckets = new HashMap<>();
+
+    /**
+     * Menu tickers in round-robin order; tickers that don't fit in a tick's budget are left at the front for the next.
+     */
+    private final ArrayDeque<MenuTickerEntry> menuTickers = new ArrayDeque<>();
+
+    private final List<ComputedTickerEntry> computedTickers = new ArrayList<>();
+
+    /**
+     * Index from a menu to its tracked state, so closing a menu doesn't need to scan every entry on the server. Entries
+     * belonging to a removed menu are marked, and dropped the next time the tick loop reaches them. Menus are only weakly
+     * held, so one that never has {@link AbstractContainerMenu#removed(Player)} called doesn't get pinned in memory.
+     */
+    private final Map<AbstractContainerMenu, TrackedMenu> trackedMenus = new WeakHashMap<>();
+
+    /**
+     * Orphaned menus found since the last leak report, by menu class.
+     */
+    private final Map<Class<?>, OrphanStats> orphans = new HashMap<>();
+
+    /**
+     * Menus whose updates were held back as their player's connection was saturated, waiting for a catch-up snapshot.
+     */
+    private final List<TrackedMenu> suspendedMenus = new ArrayList<>();
+
+    /**
+     * Text inputs with typed text waiting out their debounce.
+     */
+    private final List<TrackedMenu> pendingText = new ArrayList<>();
 
     private long lastTick = 0;
 
+    private long tickStart = 0;
+
+    /**
+     * Moving average of recent tick times, in milliseconds; used to slow down animations under load.
+     */
+    private double averageTickMillis = 0;
+
     public Ticker() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            // first registered partway through a tick
+            if (tickStart == 0) return;
+            var tickMillis = (System.nanoTime() - tickStart) / 1_000_000d;
+            averageTickMillis = averageTickMillis * 0.9 + tickMillis * 0.1;
+        });
+
         ServerTickEvents.START_SERVER_TICK.register(server -> {
-            // ticked menus
-            for (MenuTickerEntry menuTicker : menuTickers)
-                menuTicker.ticker.tick(menuTicker.menu, lastTick - menuTicker.startTick);
+            tickStart = System.nanoTime();
+
+            // computed tickers; apply last tick's results then start the next round
+            computedTickers.removeIf(this::runComputedTicker);
 
             // animated labels
-            for (AnimatedLabelEntry animatedLabel : animatedLabels) {
-                var ticksSinceTracked = lastTick - animatedLabel.startTick;
-                var interval = ticksSinceTracked % ((long) animatedLabel.label.interval() * animatedLabel.label.stacks()
-                        .size());
-                if (interval % animatedLabel.label.interval() == 0) {
-                    var stack = animatedLabel.label.stacks().get((int) (interval / animatedLabel.label.interval()));
-                    animatedLabel.slot.set(stack != null ? stack : ItemStack.EMPTY);
+            var slowdown = SSGLConfig.animationSlowdown(averageTickMillis);
+            AnimationBucket bucket;
+            while ((bucket = animationQueue.peek()) != null && bucket.nextFrameTick <= lastTick) {
+                animationQueue.poll();
+                bucket.advance(slowdown);
+                if (bucket.entries.isEmpty()) {
+                    animationBuckets.remove(bucket.key);
+                } else {
+                    bucket.nextFrameTick += bucket.key.interval;
+                    animationQueue.add(bucket);
+                }
+            }
+
+            // ticked menus
+            var budget = SSGLConfig.tickBudgetNanos();
+            // only run tickers already queued at the start, so ones added during this loop wait for the next tick
+            var remaining = menuTickers.size();
+            while (remaining > 0) {
+                remaining--;
+                var menuTicker = menuTickers.pollFirst();
+                var menu = menuTicker.tracked.get();
+                if (menu == null) continue;
+                menuTickers.addLast(menuTicker);
+                if (menuTicker.tracked.updatesSuspended()) {
+                    Metrics.UPDATES_SUSPENDED.increment();
+                    continue;
                 }
+                menuTicker.ticker.tick(menu, lastTick - menuTicker.startTick);
+                if (budget > 0 && remaining > 0 && System.nanoTime() - tickStart > budget) {
+                    // the rest are still at the front, so they go first next tick
+                    Metrics.TICKER_RUNS_DEFERRED.add(remaining);
+                    break;
+                }
+            }
+
+            suspendedMenus.removeIf(this::tryCatchUp);
+
+            if (lastTick % REAP_INTERVAL == 0) {
+                reapOrphans();
+                HeadProfiles.purgeExpired();
             }
 
+            if (lastTick % 20 == 0) Metrics.sampleRates();
+
             lastTick++;
+
+            // after the increment, so this matches the tick that text packets handled afterwards see
+            pendingText.removeIf(tracked -> {
+                var menu = tracked.get();
+                return menu == null || ((SSGLAnvilMenu) menu).ssgl_flushPendingText(lastTick);
+            });
         });
     }
 
-    private record MenuTickerEntry(AbstractContainerMenu menu, MenuBuilder.MenuTicker ticker, long startTick) {
+    /**
+     * Applies a computed ticker's finished result to its menu, and starts computing the next one if it's not still busy.
+     *
+     * @return Whether this ticker's menu is gone and it should be removed
+     */
+    private boolean runComputedTicker(ComputedTickerEntry entry) {
+        var menu = entry.tracked.get();
+        if (menu == null) {
+            if (entry.pending != null) entry.pending.cancel(false);
+            return true;
+        }
+
+        if (entry.pending != null) {
+            if (!entry.pending.isDone() || entry.tracked.updatesSuspended()) return false;
+            try {
+                var result = entry.pending.join();
+                if (result != null) for (var slotResult : Int2ObjectMaps.fastIterable(result)) {
+                    var slotId = slotResult.getIntKey();
+                    if (0 <= slotId && slotId < menu.slots.size()) {
+                        var stack = slotResult.getValue();
+                        setSlot(menu, slotId, stack);
+                    }
+                }
+            } catch (Exception ex) {
+                ServerSideGuiLib.LOGGER.error("Error computing ticker for " + entry.tracked.menuClass.getSimpleName(), ex);
+            }
+        }
+
+        var ticksOpen = lastTick - entry.startTick;
+        entry.pending = CompletableFuture.supplyAsync(() -> entry.ticker.compute(ticksOpen), COMPUTE_POOL);
+        return false;
+    }
+
+    private static void setSlot(AbstractContainerMenu menu, int slotId, @Nullable ItemStack stack) {
+        menu.slots.get(slotId).set(stack != null ? stack : ItemStack.EMPTY);
+    }
+
+    /**
+     * Sends a single snapshot of a menu whose updates were held back, once its player's connection has drained.
+     *
+     * @return Whether the menu no longer needs catching up
+     */
+    private boolean tryCatchUp(TrackedMenu tracked) {
+        var menu = tracked.get();
+        if (menu == null) return true;
+        if (tracked.owner != null && Backpressure.isSaturated(tracked.owner.get())) return false;
+        tracked.suspended = false;
+        for (var entry : tracked.animated) {
+            var stack = entry.label.stacks().get(entry.bucket.displayedFrame);
+            setSlot(menu, entry.slotId, stack);
+        }
+        if (menu instanceof SSGLAnvilMenu anvil) anvil.ssgl_refreshResult();
+        menu.sendAllDataToRemote();
+        Metrics.CATCH_UP_SNAPSHOTS.increment();
+        return true;
+    }
+
+    /**
+     * Removes menus that are no longer open for the player they were created for, but never got removed through the usual
+     * route; i.e. an exception in a handler or another mod replacing the player's menu directly. Logs a summary if any
+     * were found, as these are otherwise silent leaks.
+     */
+    private void reapOrphans() {
+        var iter = trackedMenus.entrySet().iterator();
+        while (iter.hasNext()) {
+            var entry = iter.next();
+            var tracked = entry.getValue();
+            if (tracked.owner == null) continue;
+            var owner = tracked.owner.get();
+            if (owner == null || owner.isRemoved() || owner.containerMenu != entry.getKey()) {
+                iter.remove();
+                tracked.markRemoved();
+                orphaned(tracked);
+            }
+        }
+
+        if (!orphans.isEmpty()) {
+            var summary = orphans.entrySet().stream()
+                    .map(e -> "%s x%d (oldest %d ticks)".formatted(e.getKey().getSimpleName(), e.getValue().count, e.getValue().maxAge))
+                    .collect(Collectors.joining(", "));
+            ServerSideGuiLib.LOGGER.warn("Reaped orphaned SSGL menus that were never closed: %s. %d menus, %d tickers and %d animation buckets still tracked."
+                    .formatted(summary, trackedMenus.size(), menuTickers.size(), animationBuckets.size()));
+            orphans.clear();
+        }
+    }
+
+    private void orphaned(TrackedMenu tracked) {
+        var stats = orphans.computeIfAbsent(tracked.menuClass, c -> new OrphanStats());
+        stats.count++;
+        stats.maxAge = Math.max(stats.maxAge, lastTick - tracked.trackedSince);
+    }
+
+    private static class OrphanStats {
+        private int count = 0;
+        private long maxAge = 0;
     }
 
-    private record AnimatedLabelEntry(AbstractContainerMenu menu, Slot slot, Label.Animated label, long startTick) {
+    private class TrackedMenu {
+        private final WeakReference<AbstractContainerMenu> menu;
+        @Nullable
+        private final WeakReference<Player> owner;
+        private final Class<?> menuClass;
+        private final long trackedSince;
+        private final List<AnimatedLabelEntry> animated = new ArrayList<>();
+        private boolean removed = false;
+        private boolean suspended = false;
+
+        private TrackedMenu(AbstractContainerMenu menu, @Nullable Player owner) {
+            this.menu = new WeakReference<>(menu);
+            this.owner = owner != null ? new WeakReference<>(owner) : null;
+            this.menuClass = menu.getClass();
+            this.trackedSince = lastTick;
+        }
+
+        /**
+         * Returns the tracked menu, or null if it has been removed or garbage collected.
+         */
+        @Nullable
+        private AbstractContainerMenu get() {
+            if (removed) return null;
+            var menu = this.menu.get();
+            if (menu == null) {
+                markRemoved();
+                orphaned(this);
+            }
+            return menu;
+        }
+
+        private void markRemoved() {
+            removed = true;
+        }
+
+        /**
+         * Checks if non-essential updates to this menu should be held back due to the owner's connection being full.
+         * Once suspended, the menu stays so until it's caught up in {@link #tryCatchUp(TrackedMenu)}.
+         */
+        private boolean updatesSuspended() {
+            if (suspended) return true;
+            if (owner != null && Backpressure.isSaturated(owner.get())) {
+                suspended = true;
+                suspendedMenus.add(this);
+            }
+            return suspended;
+        }
+    }
+
+    private record MenuTickerEntry(TrackedMenu tracked, MenuBuilder.MenuTicker ticker, long startTick) {
+    }
+
+    private static class ComputedTickerEntry {
+        private final TrackedMenu tracked;
+        private final MenuBuilder.ComputedTicker ticker;
+        private final long startTick;
+        @Nullable
+        private CompletableFuture<Int2ObjectMap<ItemStack>> pending = null;
+
+        private ComputedTickerEntry(TrackedMenu tracked, MenuBuilder.ComputedTicker ticker, long startTick) {
+            this.tracked = tracked;
+            this.ticker = ticker;
+            this.startTick = startTick;
+        }
+    }
+
+    /**
+     * @param slotId stored as an index as some slots' containers refer back to the menu
+     */
+    private record AnimatedLabelEntry(TrackedMenu tracked, AnimationBucket bucket, int slotId, Label.Animated label) {
+    }
+
+    /**
+     * A set of animated labels that all change frame on the same ticks.
+     */
+    private static class AnimationBucket {
+        private final Key key;
+        private final List<AnimatedLabelEntry> entries = new ArrayList<>();
+        private long nextFrameTick;
+        private int displayedFrame;
+        private long framesDue = 0;
+
+        private AnimationBucket(Key key, long currentTick) {
+            this.key = key;
+            this.nextFrameTick = currentTick + Math.floorMod(key.phase - currentTick, key.interval);
+            this.displayedFrame = frameAt(currentTick);
+        }
+
+        private int frameAt(long tick) {
+            return (int) (((tick - key.phase) / key.interval) % key.frames);
+        }
+
+        /**
+         * Moves each label in this bucket to the frame due this tick, dropping entries for removed menus. Under load,
+         * only every <code>slowdown</code>th frame is shown, or none at all if frozen.
+         *
+         * @param slowdown Current animation interval multiplier, from {@link SSGLConfig#animationSlowdown(double)}
+         */
+        private void advance(int slowdown) {
+            framesDue++;
+            var skipped = slowdown == SSGLConfig.FREEZE || (slowdown > 1 && framesDue % slowdown != 0);
+            if (!skipped) {
+                // when slowed, step through each frame in turn rather than jumping to where the clock says
+                displayedFrame = slowdown == 1 ? frameAt(nextFrameTick) : (displayedFrame + 1) % key.frames;
+            }
+
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                var entry = entries.get(i);
+                var menu = entry.tracked.get();
+                if (menu == null) {
+                    // swap remove, order doesn't matter
+                    entries.set(i, entries.get(entries.size() - 1));
+                    entries.remove(entries.size() - 1);
+                } else if (skipped) {
+                    Metrics.ANIMATION_FRAMES_SKIPPED.increment();
+                } else if (entry.tracked.updatesSuspended()) {
+                    Metrics.UPDATES_SUSPENDED.increment();
+                } else {
+                    var stack = entry.label.stacks().get(displayedFrame);
+                    setSlot(menu, entry.slotId, stack);
+                }
+            }
+        }
+
+        /**
+         * @param phase Tick modulo the animation's period that frame 0 is shown on.
+         */
+        private record Key(int interval, int frames, long phase) {
+        }
+    }
+
+    /**
+     * @return Ticks since the library started ticking.
+     */
+    public long currentTick() {
+        return lastTick;
+    }
+
+    /**
+     * Start tracking a menu for a player. Tracked menus are dropped once they are no longer the player's open menu.
+     *
+     * @param menu  Menu to track
+     * @param owner Player the menu is being opened for
+     */
+    public void track(AbstractContainerMenu menu, Player owner) {
+        var previous = trackedMenus.put(menu, new TrackedMenu(menu, owner));
+        if (previous != null) previous.markRemoved();
+    }
+
+    private TrackedMenu getTracked(AbstractContainerMenu menu) {
+        return trackedMenus.computeIfAbsent(menu, m -> new TrackedMenu(m, null));
     }
 
     public void addMenuTicker(AbstractContainerMenu menu, MenuBuilder.MenuTicker ticker) {
-        menuTickers.add(new MenuTickerEntry(menu, ticker, lastTick));
+        menuTickers.addLast(new MenuTickerEntry(getTracked(menu), ticker, lastTick));
+    }
+
+    public void addComputedTicker(AbstractContainerMenu menu, MenuBuilder.ComputedTicker ticker) {
+        computedTickers.add(new ComputedTickerEntry(getTracked(menu), ticker, lastTick));
     }
 
     public void addAnimated(AbstractContainerMenu menu, Slot slot, Label.Animated animated) {
-        if (animated.stacks().size() > 0)
-            animatedLabels.add(new AnimatedLabelEntry(menu, slot, animated, lastTick));
+        var frames = animated.stacks().size();
+        if (frames == 0) return;
+        long period = (long) animated.interval() * frames;
+        var aligned = SSGLConfig.phaseAlignedAnimations();
+        var key = new AnimationBucket.Key(animated.interval(), frames, aligned ? 0 : lastTick % period);
+        var bucket = animationBuckets.get(key);
+        if (bucket == null) {
+            bucket = new AnimationBucket(key, lastTick);
+            animationBuckets.put(key, bucket);
+            animationQueue.add(bucket);
+        }
+        var tracked = getTracked(menu);
+        var entry = new AnimatedLabelEntry(tracked, bucket, slot.index, animated);
+        bucket.entries.add(entry);
+        tracked.animated.add(entry);
+        // join the shared clock partway through instead of starting from the first frame
+        if (aligned) {
+            var stack = animated.stacks().get(bucket.displayedFrame);
+            setSlot(menu, slot.index, stack);
+        }
+    }
+
+    /**
+     * Schedule a text input's held back text to be validated, through {@link SSGLAnvilMenu#ssgl_flushPendingText(long)}.
+     */
+    public void addPendingText(AbstractContainerMenu menu) {
+        pendingText.add(getTracked(menu));
+    }
+
+    /**
+     * Stop animating a slot, i.e. when a different label is put there.
+     */
+    public void removeAnimated(AbstractContainerMenu menu, int slotId) {
+        var tracked = trackedMenus.get(menu);
+        if (tracked == null) return;
+        tracked.animated.removeIf(entry -> {
+            if (entry.slotId != slotId) return false;
+            entry.bucket.entries.remove(entry);
+            return true;
+        });
+    }
+
+    /**
+     * Checks whether non-essential updates to a menu should be held back as its player's connection is saturated. If so,
+     * the menu is sent a snapshot once the connection drains, and {@link SSGLAnvilMenu}s have their result refreshed.
+     *
+     * @param menu Menu to check
+     * @return Whether updates to the menu should be skipped for now
+     */
+    public boolean updatesSuspended(AbstractContainerMenu menu) {
+        var tracked = trackedMenus.get(menu);
+        return tracked != null && tracked.updatesSuspended();
+    }
+
+    /**
+     * @return Whether a menu is still being tracked, i.e. hasn't been closed.
+     */
+    public boolean isTracked(AbstractContainerMenu menu) {
+        var tracked = trackedMenus.get(menu);
+        return tracked != null && tracked.get() != null;
     }
 
     public void removed(AbstractContainerMenu menu) {
-        animatedLabels.removeIf(animatedLabel -> animatedLabel.menu == menu);
-        menuTickers.removeIf(menuTicker -> menuTicker.menu == menu);
+        var tracked = trackedMenus.remove(menu);
+        if (tracked != null) tracked.markRemoved();
     }
 }
@@ -0,0 +1,10 @@
+package red.jackf.serversideguilib.internal.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Used to mark slots dirty in the menu they belong to when written to
+ */
+public interface TrackedSlot {
+    void ssgl_setOwner(@Nullable SealedMenu owner);
+}